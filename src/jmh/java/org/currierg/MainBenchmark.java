@@ -0,0 +1,79 @@
+package org.currierg;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import org.currierg.analysis.FileResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Whole-file analysis ({@link Main#processFile}: read, comment blanking, struct detection, includes and usages) on
+ * synthetic headers of three sizes, and writing the JSON struct table for an analyzed tree. The huge header is above
+ * the size of the pooled read buffer, so it gets a read buffer of its own.
+ */
+public class MainBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class FileState {
+        @Param({"SMALL", "MEDIUM", "HUGE"})
+        public SyntheticSources.Size size;
+
+        public Main main;
+        public Path file;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            SyntheticSources.quietLogging();
+            Path dir = Files.createTempDirectory("sa-bench");
+            file = dir.resolve("bench.h");
+            Files.writeString(file, SyntheticSources.header(size.structs(), 42));
+            main = new Main(config(dir), dir.resolve("out"));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class TreeState {
+        @Param({"200"})
+        public int files;
+
+        public Main main;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            SyntheticSources.quietLogging();
+            Path dir = Files.createTempDirectory("sa-bench-tree");
+            SyntheticSources.writeTree(dir.resolve("src"), files, 50, 42);
+            main = new Main(config(dir.resolve("src")), dir.resolve("out"));
+            main.analyze();
+        }
+    }
+
+    static Properties config(Path sourceDir) {
+        Properties config = new Properties();
+        config.setProperty("source.dirs", sourceDir.toString());
+        config.setProperty("include.pattern", "**.{c,h}");
+        config.setProperty("cache.enabled", "false");
+        config.setProperty("analysis.threads", "1");
+        config.setProperty("output.file", "structs_table.txt");
+        config.setProperty("output.json", "structsTable.json");
+        config.setProperty("output.json.pretty", "false");
+        return config;
+    }
+
+    @Benchmark
+    public FileResult processFile(FileState state) {
+        return state.main.processFile(state.file);
+    }
+
+    @Benchmark
+    public void writeJsonOutput(TreeState state) throws IOException {
+        state.main.writeJsonOutput();
+    }
+}
@@ -0,0 +1,100 @@
+package org.currierg;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Seeded C headers for the benchmarks: struct definitions in every form the analyzer recognises (basic, typedef,
+ * packed, forward declarations), line and block comments, includes and struct usages, in the proportions of a
+ * typical driver header. The same size and seed always produce the same text.
+ */
+public final class SyntheticSources {
+    // Strong references, so the levels set below are not lost when a logger is collected
+    private static final Logger[] LOGGERS = {Logger.getLogger("org.currierg.Main"),
+            Logger.getLogger("org.currierg.Analysis"), Logger.getLogger("org.currierg.Generator")};
+    private static final String[] TYPES = {"int", "unsigned int", "char", "short", "long", "unsigned long long",
+            "double", "uint8_t", "uint32_t", "int64_t"};
+
+    public enum Size {
+        SMALL(5), MEDIUM(200), HUGE(5000);
+
+        final int structs;
+
+        Size(int structs) {
+            this.structs = structs;
+        }
+
+        public int structs() {
+            return structs;
+        }
+    }
+
+    private SyntheticSources() {
+    }
+
+    public static String header(int structs, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(structs * 256);
+        text.append("/*\n * Generated header, ").append(structs).append(" structs\n */\n");
+        text.append("#include <stdint.h>\n#include \"common.h\"\n\n");
+        for (int i = 0; i < structs; i++) {
+            String name = "s" + seed + "_" + i;
+            switch (random.nextInt(6)) {
+                case 0 -> text.append("struct ").append(name).append(";\n");
+                case 1 -> {
+                    boolean push = random.nextBoolean();
+                    text.append(push ? "#pragma pack(push, 1)\n" : "#pragma pack(2)\n");
+                    appendStruct(text, random, "struct " + name, "", i);
+                    text.append(push ? "#pragma pack(pop)\n" : "#pragma pack()\n");
+                }
+                case 2, 3 -> appendStruct(text, random, "typedef struct " + name, " " + name + "_t", i);
+                default -> appendStruct(text, random, "struct " + name, "", i);
+            }
+            if (i > 0) {
+                String used = "s" + seed + "_" + random.nextInt(i);
+                text.append("extern struct ").append(used).append(" *g_").append(i).append("; // shared instance\n");
+                text.append("int handle_").append(i).append("(struct ").append(used).append(" *in, struct ")
+                        .append(name).append(" out[4]);\n");
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    private static void appendStruct(StringBuilder text, Random random, String head, String alias, int index) {
+        text.append("/* Record ").append(index).append(": ").append(random.nextInt(1000)).append(" */\n");
+        text.append(head).append(" {\n");
+        int fields = 2 + random.nextInt(10);
+        for (int f = 0; f < fields; f++) {
+            text.append("    ");
+            if (random.nextInt(8) == 0) text.append("const ");
+            text.append(TYPES[random.nextInt(TYPES.length)]);
+            text.append(random.nextInt(6) == 0 ? " *" : " ").append("field").append(f);
+            if (random.nextInt(5) == 0) text.append('[').append(1 + random.nextInt(32)).append(']');
+            text.append(';');
+            if (random.nextInt(4) == 0) text.append(" // field ").append(f);
+            text.append('\n');
+        }
+        text.append('}').append(alias).append(";\n");
+    }
+
+    /** Writes {@code files} headers of {@code structsPerFile} structs each under dir, spread over subdirectories. */
+    public static void writeTree(Path dir, int files, int structsPerFile, long seed) throws IOException {
+        for (int i = 0; i < files; i++) {
+            Path file = dir.resolve("mod" + (i % 16)).resolve("file" + i + (i % 3 == 0 ? ".c" : ".h"));
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, header(structsPerFile, seed + i));
+        }
+    }
+
+    /** Keeps per-call INFO logging out of the measurements. */
+    public static void quietLogging() {
+        for (Logger logger : LOGGERS) {
+            logger.setLevel(Level.WARNING);
+        }
+    }
+}
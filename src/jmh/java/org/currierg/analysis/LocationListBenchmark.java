@@ -0,0 +1,49 @@
+package org.currierg.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Heap cost of recording struct locations: the packed {@link LocationList} against the {@code "path:line"} Strings it
+ * replaced. The gc profiler's normalized allocation rate (bytes/op) is the figure to compare.
+ */
+@State(Scope.Benchmark)
+public class LocationListBenchmark {
+    @Param({"10000"})
+    public int locations;
+
+    private String[] paths;
+
+    @Setup
+    public void setUp() {
+        paths = new String[64];
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = "drivers/module" + (i % 8) + "/include/header" + i + ".h";
+        }
+    }
+
+    @Benchmark
+    public LocationList packed() {
+        FileTable files = new FileTable();
+        LocationList list = new LocationList();
+        for (int i = 0; i < locations; i++) {
+            list.add(files.intern(paths[i % paths.length]), i);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public List<String> strings() {
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < locations; i++) {
+            list.add(paths[i % paths.length] + ":" + i);
+        }
+        return list;
+    }
+}
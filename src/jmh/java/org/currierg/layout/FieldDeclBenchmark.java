@@ -0,0 +1,43 @@
+package org.currierg.layout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.currierg.SyntheticSources;
+import org.currierg.util.SourceText;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Field parsing of struct bodies with {@link FieldDecl#parse}, which is what {@code PojoGenerator.parseFields}
+ * spends its time in before mapping the types.
+ */
+@State(Scope.Benchmark)
+public class FieldDeclBenchmark {
+    private List<String> bodies;
+
+    @Setup
+    public void setUp() {
+        SourceText source = SourceText.of(SyntheticSources.header(SyntheticSources.Size.MEDIUM.structs(), 42));
+        bodies = new ArrayList<>();
+        CharSequence text = source.text();
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '{') {
+                String body = source.bodyAt(i);
+                if (body != null) {
+                    bodies.add(body);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void parseFields(Blackhole blackhole) {
+        for (String body : bodies) {
+            blackhole.consume(FieldDecl.parse(body));
+        }
+    }
+}
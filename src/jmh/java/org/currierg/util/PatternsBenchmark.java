@@ -0,0 +1,46 @@
+package org.currierg.util;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.currierg.SyntheticSources;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Every {@link PatternsUtil} pattern run to exhaustion over a comment-free synthetic header, the way the analyzer
+ * scans a file. STRUCT_FIELD is run over the header too, which also exercises its failure path between bodies.
+ */
+@State(Scope.Benchmark)
+public class PatternsBenchmark {
+    @Param({"BASIC_STRUCT", "TYPEDEF_STRUCT", "PRAGMA_STRUCT", "FORWARD_STRUCT", "STRUCT_FIELD", "STRUCT_USAGE",
+            "INCLUDE", "COMMENT_REMOVAL", "BROAD_STRUCT"})
+    public String pattern;
+
+    @Param({"MEDIUM"})
+    public SyntheticSources.Size size;
+
+    private Pattern compiled;
+    private CharSequence text;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        compiled = (Pattern) PatternsUtil.class.getField(pattern + "_PATTERN").get(null);
+        String header = SyntheticSources.header(size.structs(), 42);
+        // The comment pattern is measured on raw text; the others see what the analyzer gives them
+        text = pattern.equals("COMMENT_REMOVAL") ? header : SourceText.of(header).text();
+    }
+
+    @Benchmark
+    public int findAll() {
+        Matcher matcher = compiled.matcher(text);
+        int matches = 0;
+        while (matcher.find()) {
+            matches++;
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,59 @@
+package org.currierg.util;
+
+import java.nio.CharBuffer;
+import java.util.Random;
+
+import org.currierg.SyntheticSources;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Comment stripping ({@link SourceText#blankComments}) and offset-to-line lookups, which replaced the old
+ * {@code getLineNumber} scan: building the {@link LineIndex} once per file, then one lookup per match.
+ */
+@State(Scope.Benchmark)
+public class SourceTextBenchmark {
+    @Param({"SMALL", "MEDIUM", "HUGE"})
+    public SyntheticSources.Size size;
+
+    private char[] raw;
+    private char[] scratch;
+    private LineIndex lines;
+    private int[] offsets;
+
+    @Setup
+    public void setUp() {
+        String header = SyntheticSources.header(size.structs(), 42);
+        raw = header.toCharArray();
+        scratch = new char[raw.length];
+        lines = LineIndex.of(header);
+        Random random = new Random(7);
+        offsets = new int[1024];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = random.nextInt(raw.length);
+        }
+    }
+
+    @Benchmark
+    public char[] blankComments() {
+        System.arraycopy(raw, 0, scratch, 0, raw.length);
+        SourceText.blankComments(scratch, scratch.length);
+        return scratch;
+    }
+
+    @Benchmark
+    public LineIndex buildLineIndex() {
+        return LineIndex.of(CharBuffer.wrap(raw));
+    }
+
+    @Benchmark
+    public void lineOf(Blackhole blackhole) {
+        for (int offset : offsets) {
+            blackhole.consume(lines.lineOf(offset));
+        }
+    }
+}
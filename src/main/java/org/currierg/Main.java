@@ -1,30 +1,83 @@
 package org.currierg;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 
 import java.io.*;
-import java.nio.charset.MalformedInputException;
-import java.nio.charset.StandardCharsets;
+import java.nio.CharBuffer;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import java.util.logging.*;
 import java.util.regex.*;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
+import org.currierg.analysis.AnalysisCache;
+import org.currierg.analysis.AnalysisError;
+import org.currierg.analysis.AnalysisEngine;
+import org.currierg.analysis.EngineComparison;
+import org.currierg.analysis.ErrorKind;
+import org.currierg.analysis.ErrorSink;
+import org.currierg.analysis.FileDiscovery;
+import org.currierg.analysis.FileResult;
+import org.currierg.analysis.FileTable;
+import org.currierg.analysis.IncludeGraph;
+import org.currierg.analysis.IncludeResolver;
+import org.currierg.analysis.LocationList;
+import org.currierg.analysis.PragmaPack;
+import org.currierg.analysis.SourceWatcher;
+import org.currierg.analysis.StructDeclaration;
+import org.currierg.analysis.StructDefinition;
+import org.currierg.analysis.StructKind;
+import org.currierg.analysis.StructUsage;
+import org.currierg.analysis.SymbolTable;
+import org.currierg.analysis.UsageScanner;
+import org.currierg.analysis.UsageSpill;
+import org.currierg.generators.GenerateOptions;
 import org.currierg.generators.PojoGenerator;
+import org.currierg.index.StructIndexWriter;
+import org.currierg.layout.Abi;
+import org.currierg.layout.LayoutCalculator;
+import org.currierg.layout.LayoutReport;
+import org.currierg.layout.StructBody;
+import org.currierg.metrics.FileProbe;
+import org.currierg.metrics.Metrics;
+import org.currierg.serve.StructQueryServer;
+import org.currierg.serve.StructQuerySnapshot;
 import org.currierg.util.LogUtil;
+import org.currierg.util.MatchBudget;
 import org.currierg.util.PatternsUtil;
+import org.currierg.util.SourceReader;
+import org.currierg.util.SourceText;
 
 public class Main {
     private static final Logger LOGGER = Logger.getLogger("org.currierg.Main");
     private static final Logger ANALYSIS_LOGGER = Logger.getLogger("org.currierg.Analysis");
     private static final LogUtil LOG = new LogUtil(LOGGER);
     private static final LogUtil ANALYSIS_LOG = new LogUtil(ANALYSIS_LOGGER);
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
 
     private final Properties config;
     private final Map<String, StructInfo> structs = new HashMap<>();
-    private final List<StructMatch> structMatches = new ArrayList<>();
+    private final Map<Path, FileResult> results = new TreeMap<>();
+    private FileTable fileTable = new FileTable();
     private final Path baseOutputDir;
     private final boolean testMode;
+    private final AnalysisEngine engine;
+    private final boolean collectLayouts;
+    private final EngineComparison engineComparison;
+    private final FileDiscovery discovery;
+    private volatile AnalysisCache cache;
+    private volatile ErrorSink errorSink;
+    private volatile Metrics metrics = new Metrics("analyze", 0);
+    private final boolean bounded;
+    private final long matchBudgetMillis;
+    private UsageSpill spill;
 
     static {
         Logger.getLogger("").addHandler(new ConsoleHandler());
@@ -32,7 +85,38 @@ public class Main {
     }
 
     public Main(boolean testMode) throws IOException {
+        this(testMode, getBaseOutputDir(testMode));
+    }
+
+    private Main(boolean testMode, Path baseOutputDir) throws IOException {
+        this(testMode, baseOutputDir, loadSetup(baseOutputDir));
+    }
+
+    /**
+     * Analyzer over an in-memory configuration, writing outputs under the given directory. Logging is left as the
+     * caller configured it; used by the benchmarks.
+     */
+    Main(Properties config, Path baseOutputDir) throws IOException {
+        this(false, baseOutputDir.toAbsolutePath(), config);
+        Files.createDirectories(this.baseOutputDir);
+    }
+
+    private Main(boolean testMode, Path baseOutputDir, Properties config) {
         this.testMode = testMode;
+        this.baseOutputDir = baseOutputDir;
+        this.config = config;
+        this.engine = AnalysisEngine.fromConfig(config.getProperty("analysis.engine"));
+        this.engineComparison = Boolean.parseBoolean(config.getProperty("analysis.engine.compare", "false"))
+                ? new EngineComparison(engine, ANALYSIS_LOG) : null;
+        this.collectLayouts = getLayoutReportFile() != null;
+        this.discovery = new FileDiscovery(FileDiscovery.parseRoots(config.getProperty("source.dirs")),
+                config.getProperty("include.pattern", "**/*.{c,h}"), config.getProperty("exclude.pattern", ""),
+                Integer.parseInt(config.getProperty("max.files", "0").trim()), ANALYSIS_LOG);
+        this.bounded = Boolean.parseBoolean(config.getProperty("analysis.bounded", "false"));
+        this.matchBudgetMillis = Long.parseLong(config.getProperty("analysis.match.budget.ms", "2000").trim());
+    }
+
+    private static Path getBaseOutputDir(boolean testMode) throws IOException {
         // Get JAR's directory as base in test mode
         Path jarPath;
         try {
@@ -40,17 +124,21 @@ public class Main {
         } catch (Exception e) {
             throw new IOException("Failed to determine JAR location: " + e.getMessage(), e);
         }
-        this.baseOutputDir = testMode ? jarPath.toAbsolutePath() : Paths.get("SAOut").toAbsolutePath();
+        return testMode ? jarPath.toAbsolutePath() : Paths.get("SAOut").toAbsolutePath();
+    }
+
+    // Sets up logging from the properties dir under the base output dir and returns the loaded config.properties
+    private static Properties loadSetup(Path baseOutputDir) throws IOException {
         LOG.info("Base output dir: " + baseOutputDir);
         Files.createDirectories(baseOutputDir);
 
         Path propsDir = baseOutputDir.resolve("properties");
         LOG.info("Using properties dir: " + propsDir.toAbsolutePath());
-        setupLogging(propsDir);
-        this.config = loadPropertiesFromDir(propsDir, "config.properties");
+        setupLogging(baseOutputDir, propsDir);
+        return loadPropertiesFromDir(propsDir, "config.properties");
     }
 
-    private Properties loadPropertiesFromDir(Path dir, String fileName) throws IOException {
+    private static Properties loadPropertiesFromDir(Path dir, String fileName) throws IOException {
         Properties props = new Properties();
         Path filePath = dir.resolve(fileName);
         LOG.info("Attempting to load " + fileName + " from: " + filePath.toAbsolutePath());
@@ -64,7 +152,7 @@ public class Main {
         return props;
     }
 
-    private void setupLogging(Path propsDir) throws IOException {
+    private static void setupLogging(Path baseOutputDir, Path propsDir) throws IOException {
         Path logConfigFile = propsDir.resolve("logging.properties");
         String logDir = baseOutputDir.resolve("logs").toString();
         Files.createDirectories(Paths.get(logDir));
@@ -79,10 +167,9 @@ public class Main {
             LOG.warning(logConfigFile.toAbsolutePath() + " not found, using default console logging");
         }
 
-        logProps.setProperty("java.util.logging.FileHandler.pattern", logDir + "/app.log");
-        logProps.setProperty("org.currierg.util.AppFileHandler.pattern", logDir + "/app.log");
-        logProps.setProperty("org.currierg.util.AnalysisFileHandler.pattern", logDir + "/analysis.log");
-        logProps.setProperty("org.currierg.util.GenerateFileHandler.pattern", logDir + "/generate.log");
+        logProps.setProperty("org.currierg.util.AsyncLogDispatcher.app.pattern", logDir + "/app.log");
+        logProps.setProperty("org.currierg.util.AsyncLogDispatcher.analysis.pattern", logDir + "/analysis.log");
+        logProps.setProperty("org.currierg.util.AsyncLogDispatcher.generate.pattern", logDir + "/generate.log");
 
         LogManager.getLogManager().reset();
         try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
@@ -109,9 +196,16 @@ public class Main {
             if (Arrays.asList(args).contains("--generate-classes")) {
                 LOG.info("Starting class generation mode");
                 main.generateClasses();
+            } else if (Arrays.asList(args).contains("--serve")) {
+                LOG.info("Starting query server mode");
+                main.serve();
+            } else if (Arrays.asList(args).contains("--watch")) {
+                LOG.info("Starting watch mode");
+                main.watch();
             } else {
                 LOG.info("Starting analysis mode");
                 main.analyze();
+                main.closeErrorSink();
             }
         } catch (Exception e) {
             LOG.severe("Error in main: " + e.getClass().getSimpleName() + " - " + e.getMessage());
@@ -132,166 +226,510 @@ public class Main {
         return config;
     }
 
-    private void analyze() throws IOException {
-        String sourceDir = config.getProperty("source.dirs");
-        if (sourceDir == null || sourceDir.trim().isEmpty()) {
-            throw new IllegalArgumentException("source.dirs is not specified in config");
+    void analyze() throws IOException {
+        if (!bounded) {
+            analyze(false);
+            return;
         }
-        String includePattern = config.getProperty("include.pattern", "**/*.{c,h}");
-        String excludePattern = config.getProperty("exclude.pattern", "");
-
-        ANALYSIS_LOG.info("Analyzing source directory: " + sourceDir);
-        Path sourcePath = Paths.get(sourceDir);
-        List<Path> files = new ArrayList<>();
-        FileVisitor<Path> visitor = new SimpleFileVisitor<>() {
-            @Override
-            public FileVisitResult visitFile(Path file, java.nio.file.attribute.BasicFileAttributes attrs) {
-                if (Files.isRegularFile(file) && matchesPattern(file, sourcePath, includePattern) && !matchesPattern(file, sourcePath, excludePattern)) {
-                    files.add(file);
-                }
-                return FileVisitResult.CONTINUE;
-            }
-        };
-        Files.walkFileTree(sourcePath, visitor);
+        try {
+            analyze(true);
+        } finally {
+            closeSpill();
+        }
+    }
 
-        ANALYSIS_LOG.info("Found " + files.size() + " files to process");
-        for (Path file : files) {
-            processFile(file);
+    /**
+     * Runs a full analysis. In bounded mode ({@code analysis.bounded}) candidate usages go to a {@link UsageSpill}
+     * instead of the file results and are merged back from disk while the outputs are written, so the heap holds
+     * definitions, includes and per-struct counts but no usage locations. The analysis cache, which keeps whole file
+     * results, is bypassed then, and the binary index, which is built in memory, is not written.
+     */
+    private void analyze(boolean bounded) throws IOException {
+        metrics = new Metrics("analyze", metricsSlowestFiles());
+        ANALYSIS_LOG.info("Analyzing source directories: " + discovery.roots());
+        results.clear();
+        if (bounded) {
+            cache = null;
+            spill = openSpill();
+        } else {
+            cache = openCache();
+        }
+        metrics.time("walkAndParse", () -> results.putAll(processFiles()));
+        metrics.count("directories", discovery.directories());
+        ANALYSIS_LOG.info("Found and processed " + results.size() + " files");
+        openErrorSink();
+        metrics.time("resolve", () -> rebuildStructTable(true));
+        errorSink.flush();
+        ANALYSIS_LOG.info("Errors: " + errorSink.summary());
+        if (engineComparison != null) {
+            ANALYSIS_LOG.info(engineComparison.summary());
+        }
+        // Before the cache is saved, so headers parsed only through the include paths are cached too
+        metrics.time("includeGraph", this::writeIncludeReport);
+        if (cache != null) {
+            ANALYSIS_LOG.info("Analysis cache: " + cache.hits() + " hits, " + cache.misses() + " misses, "
+                    + cache.removed() + " removed files dropped");
+            metrics.count("cacheHits", cache.hits());
+            metrics.count("cacheMisses", cache.misses());
+            metrics.time("cacheSave", cache::save);
         }
 
-        writeJsonOutput();
-        writeTxtOutput();
+        metrics.time("writeJson", this::writeJsonOutput);
+        metrics.time("writeTxt", this::writeTxtOutput);
+        metrics.time("writeIndex", this::writeIndexOutput);
+        metrics.time("writeLayout", this::writeLayoutReport);
+        writeMetrics(metrics, "output.metrics", ANALYSIS_LOG);
     }
 
-    private boolean matchesPattern(Path file, Path baseDir, String pattern) {
-        if (pattern.isEmpty()) return false;
-        Path relativePath = baseDir.relativize(file);
-        return FileSystems.getDefault()
-                .getPathMatcher("glob:" + pattern)
-                .matches(relativePath);
+    private UsageSpill openSpill() throws IOException {
+        long budgetMb = Long.parseLong(config.getProperty("analysis.spill.budget.mb", "256").trim());
+        String spillDir = config.getProperty("analysis.spill.dir", "");
+        Path dir = spillDir.isBlank() ? baseOutputDir.resolve("spill") : Paths.get(spillDir.trim());
+        ANALYSIS_LOG.info("Bounded-memory analysis: spilling usages to " + dir + " beyond " + budgetMb + " MB; analysis cache bypassed");
+        return UsageSpill.create(dir, budgetMb * 1024 * 1024, ANALYSIS_LOG);
     }
 
-    private void processFile(Path file) {
-        List<String> lines = null;
+    private void closeSpill() {
+        UsageSpill current = spill;
+        spill = null;
+        if (current == null) return;
         try {
+            current.close();
+        } catch (IOException e) {
+            ANALYSIS_LOG.warning("Failed to delete usage spill files: " + e.getMessage());
+        }
+    }
+
+    private int metricsSlowestFiles() {
+        return Integer.parseInt(config.getProperty("metrics.slowest.files", "10").trim());
+    }
+
+    private void writeMetrics(Metrics runMetrics, String key, LogUtil log) throws IOException {
+        log.info("Metrics: " + runMetrics.summary());
+        String outputPath = config.getProperty(key);
+        if (outputPath == null || outputPath.trim().isEmpty()) {
+            return;
+        }
+        Path outputFile = baseOutputDir.resolve(outputPath.trim());
+        runMetrics.write(outputFile);
+        log.info("Wrote metrics to " + outputFile);
+    }
+
+    private void rebuildStructTable(boolean reportErrors) throws IOException {
+        structs.clear();
+        fileTable = new FileTable();
+        List<FileResult> ordered = new ArrayList<>(results.values());
+        int[] fileIds = new int[ordered.size()];
+        // Phase 1: collect every definition before any usage is looked at
+        for (int i = 0; i < ordered.size(); i++) {
+            FileResult result = ordered.get(i);
+            fileIds[i] = fileTable.intern(result.path());
+            for (StructDefinition definition : result.definitions()) {
+                structs.computeIfAbsent(definition.name(), k -> new StructInfo(k)).addDefinition(fileIds[i], definition.line(), definition.offset());
+            }
+            if (reportErrors) {
+                reportErrors(result);
+            }
+        }
+
+        // Phase 2: resolve usages against the frozen table, so the outcome no longer depends on file order
+        SymbolTable symbols = SymbolTable.freeze(structs.keySet());
+        if (spill != null) {
+            for (Map.Entry<String, Integer> count : spill.finish(fileTable, symbols).entrySet()) {
+                structs.get(count.getKey()).spilledUsages = count.getValue();
+            }
+            metrics.count("spilledUsages", spill.spilled());
+            ANALYSIS_LOG.info("Resolved spilled usages against " + symbols.size() + " struct names");
+            return;
+        }
+        List<List<StructUsage>> resolved = mapInOrder(ordered, result -> symbols.resolve(result.usages()));
+        for (int i = 0; i < resolved.size(); i++) {
+            for (StructUsage usage : resolved.get(i)) {
+                structs.get(usage.name()).addUsage(fileIds[i], usage.line());
+            }
+        }
+        ANALYSIS_LOG.info("Resolved usages against " + symbols.size() + " struct names");
+    }
+
+    private void watch() throws IOException, InterruptedException {
+        warnIfBounded("watch");
+        analyze(false);
+        long debounceMillis = Long.parseLong(config.getProperty("watch.debounce.ms", "500").trim());
+        // Watch batches only update the in-memory cache; persist it once when the process is stopped
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            closeErrorSink();
+            AnalysisCache current = cache;
+            if (current == null) return;
             try {
-                lines = Files.readAllLines(file, StandardCharsets.UTF_8);
-            } catch (MalformedInputException e) {
-                lines = Files.readAllLines(file, StandardCharsets.ISO_8859_1);
+                current.save();
+            } catch (IOException e) {
+                ANALYSIS_LOG.warning("Failed to save analysis cache on shutdown: " + e.getMessage());
             }
+        }));
+
+        try (SourceWatcher watcher = new SourceWatcher(discovery.roots(), debounceMillis, ANALYSIS_LOG)) {
+            watcher.run(new SourceWatcher.Listener() {
+                @Override
+                public void filesChanged(Set<Path> paths) {
+                    reanalyze(paths);
+                }
+
+                @Override
+                public void rescanRequired() {
+                    ANALYSIS_LOG.warning("Watch events were lost, rescanning " + discovery.roots());
+                    try {
+                        analyze(false);
+                    } catch (IOException e) {
+                        ANALYSIS_LOG.severe("Rescan failed: " + e.getMessage());
+                    }
+                }
+            });
+        }
+    }
+
+    private void serve() throws IOException, InterruptedException {
+        warnIfBounded("serve");
+        analyze(false);
+        StructQuerySnapshot.Builder builder = StructQuerySnapshot.builder(fileTable);
+        for (StructInfo struct : sortedStructs()) {
+            builder.add(struct.name, struct.definitions, struct.usages);
+        }
+        int port = Integer.parseInt(config.getProperty("serve.port", "8765").trim());
+        int threads = Integer.parseInt(config.getProperty("serve.threads", "0").trim());
+        StructQueryServer server = new StructQueryServer(builder.build(), port,
+                threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), LOG);
+        structs.clear();
+        results.clear();
 
-            String content = String.join("\n", lines);
-            String cleanContent = PatternsUtil.COMMENT_REMOVAL_PATTERN.matcher(content).replaceAll("");
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            stopped.countDown();
+        }));
+        server.start();
+        stopped.await();
+    }
+
+    // Watch and serve keep every usage in memory between updates, so they always run the in-memory analysis
+    private void warnIfBounded(String mode) {
+        if (bounded) {
+            LOG.warning("analysis.bounded is ignored in " + mode + " mode");
+        }
+    }
 
-            Matcher matcher = PatternsUtil.BROAD_STRUCT_PATTERN.matcher(cleanContent);
-            while (matcher.find()) {
-                structMatches.add(new StructMatch(matcher.group(0), file, matcher.start()));
+    private void reanalyze(Set<Path> paths) {
+        int updated = 0;
+        int removed = 0;
+        for (Path path : paths) {
+            if (Files.isRegularFile(path)) {
+                if (!discovery.accepts(path)) continue;
+                results.put(path, analyzeFile(path));
+                updated++;
+            } else if (!Files.exists(path)) {
+                // A deleted directory only reports itself, so drop everything beneath it as well
+                List<Path> gone = results.keySet().stream().filter(p -> p.startsWith(path)).toList();
+                for (Path p : gone) {
+                    results.remove(p);
+                    if (cache != null) cache.forget(p);
+                }
+                removed += gone.size();
             }
+            // Anything else still exists (a directory, or a special file): files that land in a new directory are
+            // reported on their own by the watcher, so there is nothing to rescan here
+        }
+        if (updated == 0 && removed == 0) {
+            return;
+        }
+        ANALYSIS_LOG.info("Re-analyzed " + updated + " changed files, dropped " + removed + " deleted files");
+        try {
+            // The error file is rewritten from the current results, so saving a file again does not pile up copies
+            // of its errors and deleted files drop out
+            openErrorSink();
+            rebuildStructTable(true);
+            errorSink.flush();
+            writeJsonOutput();
+            writeTxtOutput();
+            writeIndexOutput();
+            writeLayoutReport();
+            writeIncludeReport();
+        } catch (IOException e) {
+            ANALYSIS_LOG.severe("Failed to rewrite outputs: " + e.getMessage());
+        }
+    }
+
+    private AnalysisCache openCache() {
+        if (!Boolean.parseBoolean(config.getProperty("cache.enabled", "true"))) {
+            return null;
+        }
+        Path cacheFile = baseOutputDir.resolve(config.getProperty("cache.file", "cache/analysisCache.json"));
+        // Results also depend on the source roots (relative paths) and the detection engine
+        // Cached results without field bodies are useless to the layout report, so it is part of the fingerprint
+        String roots = discovery.roots().stream().map(Path::toString).collect(Collectors.joining(","));
+        // The match budget decides where the regex gives way to the linear scans, whose results can differ slightly
+        String fingerprint = roots + "|" + engine + "|budget=" + matchBudgetMillis + (collectLayouts ? "|layout" : "");
+        return AnalysisCache.load(cacheFile, fingerprint, ANALYSIS_LOG);
+    }
 
-            Pattern typedefPattern = PatternsUtil.TYPEDEF_STRUCT_PATTERN;
-            Pattern tagPattern = PatternsUtil.BASIC_STRUCT_PATTERN;
-            Pattern pragmaPattern = PatternsUtil.PRAGMA_STRUCT_PATTERN;
-            Pattern forwardPattern = PatternsUtil.FORWARD_STRUCT_PATTERN;
+    private int getAnalysisThreads() {
+        if (!Boolean.parseBoolean(config.getProperty("analysis.parallel", "true"))) {
+            return 1;
+        }
+        int threads = Integer.parseInt(config.getProperty("analysis.threads", "0").trim());
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
 
-            for (StructMatch match : structMatches) {
-                String name = null;
-                Matcher m;
+    // Files are parsed as the walk finds them; the returned map is sorted by path, so outputs are stable across runs
+    private Map<Path, FileResult> processFiles() throws IOException {
+        int threads = getAnalysisThreads();
+        int walkers = Integer.parseInt(config.getProperty("discovery.threads", "0").trim());
+        int queueCapacity = Integer.parseInt(config.getProperty("discovery.queue", "1024").trim());
+        walkers = walkers > 0 ? walkers : threads;
+        if (threads <= 1) {
+            ANALYSIS_LOG.info("Processing files sequentially while discovering with " + walkers + " walkers");
+        } else {
+            ANALYSIS_LOG.info("Processing files in parallel with " + threads + " workers while discovering with " + walkers + " walkers");
+        }
+        return discovery.process(walkers, threads, queueCapacity, spill != null ? this::spillFile : this::analyzeFile);
+    }
 
-                m = typedefPattern.matcher(match.content);
-                if (m.matches()) {
-                    name = m.group(2) != null ? m.group(2) : m.group(1);
-                } else {
-                    m = tagPattern.matcher(match.content);
-                    if (m.matches()) {
-                        name = m.group(1);
-                    } else {
-                        m = pragmaPattern.matcher(match.content);
-                        if (m.matches()) {
-                            name = m.group(1);
-                        } else {
-                            m = forwardPattern.matcher(match.content);
-                            if (m.matches()) {
-                                name = m.group(1);
+    // Bounded mode: the usages go to the spill and only the rest of the result is kept
+    private FileResult spillFile(Path file) {
+        FileResult result = processFile(file);
+        try {
+            spill.add(result.path(), result.usages());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spill usages of " + result.path() + ": " + e.getMessage(), e);
+        }
+        return new FileResult(result.path(), result.definitions(), result.bodies(), List.of(), result.includes(), result.errors());
+    }
+
+    // Applies the task to every item on the analysis pool; results keep the order of the input list
+    private <T, R> List<R> mapInOrder(List<T> items, Function<T, R> task) throws IOException {
+        int threads = getAnalysisThreads();
+        if (threads <= 1 || items.size() <= 1) {
+            return items.stream().map(task).toList();
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(() -> items.parallelStream().map(task).toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Analysis interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Parallel analysis failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private FileResult analyzeFile(Path file) {
+        return cache != null ? cache.get(file, this::processFile) : processFile(file);
+    }
+
+    // The regex engine runs under the file's match budget and falls back to the lexer; the comparison is left alone
+    private List<StructDeclaration> detectStructs(Path file, CharSequence text, MatchBudget budget) {
+        if (engineComparison != null) {
+            return engineComparison.detect(file.toString(), text);
+        }
+        if (engine != AnalysisEngine.REGEX) {
+            return engine.detector().detect(text);
+        }
+        try {
+            return engine.detector().detect(budget.guard(text));
+        } catch (MatchBudget.Exceeded | StackOverflowError e) {
+            budget.fellBack("BROAD_STRUCT_PATTERN", e);
+            return AnalysisEngine.LEXER.detector().detect(text);
+        }
+    }
+
+    FileResult processFile(Path file) {
+        String shortPath = getShortPath(file);
+        FileResult result = FileResult.empty(shortPath);
+        FileProbe probe = new FileProbe();
+        try {
+            CharBuffer decoded = SourceReader.read(file, probe);
+            // Reading and decoding are not charged to the budget, only the matching from comment stripping on
+            MatchBudget budget = MatchBudget.start(matchBudgetMillis);
+            SourceText source = SourceText.wrap(decoded, probe, budget);
+            CharSequence cleanContent = source.text();
+            NavigableMap<Integer, Integer> packs = null;
+
+            for (StructDeclaration declaration : detectStructs(file, cleanContent, budget)) {
+                probe.match();
+                if (declaration.name() != null) {
+                    result.addDefinition(declaration.name(), declaration.kind(), source.lineOf(declaration.start()), declaration.start());
+                    if (collectLayouts) {
+                        String body = source.bodyAt(declaration.start());
+                        if (body != null) {
+                            // Same lookup as the generator's, so push/pop and standalone pack pragmas count here too
+                            if (packs == null) {
+                                packs = PragmaPack.scan(cleanContent);
                             }
+                            Map.Entry<Integer, Integer> pack = packs.floorEntry(declaration.start());
+                            result.addBody(StructBody.parse(declaration.name(), body, pack == null ? 0 : pack.getValue()));
                         }
                     }
-                }
-
-                if (name != null) {
-                    final String finalName = name;
-                    int lineNum = getLineNumber(lines, match.start);
-                    String location = getShortPath(file) + ":" + lineNum;
-                    structs.computeIfAbsent(finalName, k -> new StructInfo(k)).addDefinition(location);
                 } else {
-                    ANALYSIS_LOG.warning("File: " + file + "\nInvalid struct match: " + match.content + "\n---");
-                    writeError("Invalid struct match in " + file + ": " + match.content);
+                    CharSequence snippet = cleanContent.subSequence(declaration.start(), declaration.end());
+                    ANALYSIS_LOG.warning(() -> "File: " + file + "\nInvalid struct match: " + snippet + "\n---");
+                    result.addError(ErrorKind.INVALID_STRUCT_MATCH, source.lineOf(declaration.start()), snippet, "Invalid struct match: " + snippet);
                 }
             }
+            probe.lap(FileProbe.Step.DETECT);
+
+            Matcher includeMatcher = PatternsUtil.INCLUDE_PATTERN.matcher(cleanContent);
+            while (includeMatcher.find()) {
+                probe.match();
+                boolean system = includeMatcher.group(1) != null;
+                result.addInclude(system ? includeMatcher.group(1) : includeMatcher.group(2), system, source.lineOf(includeMatcher.start()));
+            }
+            probe.lap(FileProbe.Step.INCLUDES);
 
-            Matcher useMatcher = PatternsUtil.STRUCT_USAGE_PATTERN.matcher(cleanContent);
-            while (useMatcher.find()) {
-                String name = null;
-                for (int i = 1; i <= useMatcher.groupCount(); i++) {
-                    if (useMatcher.group(i) != null && useMatcher.group(i).matches("\\w+")) {
-                        name = useMatcher.group(i);
-                        break;
+            Matcher useMatcher = PatternsUtil.STRUCT_USAGE_PATTERN.matcher(budget.guard(cleanContent));
+            int scanned = 0;
+            try {
+                while (useMatcher.find()) {
+                    probe.match();
+                    String name = null;
+                    for (int i = 1; i <= useMatcher.groupCount(); i++) {
+                        if (useMatcher.group(i) != null && useMatcher.group(i).matches("\\w+")) {
+                            name = useMatcher.group(i);
+                            break;
+                        }
                     }
+                    // Candidate usages are resolved against the frozen symbol table once all files are scanned
+                    if (name != null) {
+                        result.addUsage(name, source.lineOf(useMatcher.start()));
+                    }
+                    scanned = useMatcher.end();
                 }
-                if (name != null && structs.containsKey(name)) {
-                    int lineNum = getLineNumber(lines, useMatcher.start());
-                    String location = getShortPath(file) + ":" + lineNum;
-                    structs.get(name).addUsage(location);
-                }
+            } catch (MatchBudget.Exceeded | StackOverflowError e) {
+                // Usages found so far are kept; the scanner picks up after the last complete match
+                budget.fellBack("STRUCT_USAGE_PATTERN", e);
+                UsageScanner.scan(cleanContent, scanned, (name, start) -> {
+                    probe.match();
+                    result.addUsage(name, source.lineOf(start));
+                });
             }
+            probe.lap(FileProbe.Step.USAGES);
+            reportFallbacks(file, result, probe, budget);
         } catch (IOException e) {
-            ANALYSIS_LOG.warning("File: " + file + "\nSkipped due to IO Error: " + e.getClass().getSimpleName() + " - " + e.getMessage() + "\n---");
-            writeError("IO Error processing " + file + ": " + e.getMessage());
+            ANALYSIS_LOG.warning(() -> "File: " + file + "\nSkipped due to IO Error: " + e.getClass().getSimpleName() + " - " + e.getMessage() + "\n---");
+            result.addError(ErrorKind.IO_ERROR, 0, null, "IO Error: " + e.getClass().getSimpleName() + " - " + e.getMessage());
         }
+        metrics.file(shortPath, probe, result.definitions().size(), result.usages().size(), result.includes().size(),
+                result.errors().size());
+        return result;
     }
 
-    private String getShortPath(Path file) {
-        return Paths.get(config.getProperty("source.dirs")).relativize(file).toString().replace('\\', '/');
+    private void reportFallbacks(Path file, FileResult result, FileProbe probe, MatchBudget budget) {
+        for (MatchBudget.Fallback fallback : budget.fallbacks()) {
+            String message = fallback.pattern() + " " + fallback.reason() + " after "
+                    + String.format("%.1f", fallback.nanos() / 1e6) + " ms; used the linear scan instead";
+            ANALYSIS_LOG.warning(() -> "File: " + file + "\n" + message + "\n---");
+            result.addError(ErrorKind.REGEX_FALLBACK, 0, null, message);
+            probe.fallback();
+        }
     }
 
-    private int getLineNumber(List<String> lines, int charPosition) {
-        int lineNum = 1;
-        int currentPos = 0;
-        for (String line : lines) {
-            currentPos += line.length() + 1;
-            if (currentPos > charPosition) {
-                return lineNum;
-            }
-            lineNum++;
-        }
-        return lineNum;
+    /** Metrics of the current or last run; {@link #processFile} calls outside a run count into a fresh set. */
+    Metrics metrics() {
+        return metrics;
+    }
+
+    private String getShortPath(Path file) {
+        return discovery.base().relativize(file.toAbsolutePath().normalize()).toString().replace('\\', '/');
     }
 
-    private void writeJsonOutput() throws IOException {
+    private Path getJsonOutputFile() {
         String outputPath = config.getProperty("output.json");
         if (outputPath == null || outputPath.trim().isEmpty()) {
             throw new IllegalArgumentException("output.json is not specified in config");
         }
         Path outputFile = baseOutputDir.resolve(outputPath);
+        boolean gzip = Boolean.parseBoolean(config.getProperty("output.json.gzip", "false"));
+        if (gzip && !outputPath.endsWith(".gz")) {
+            outputFile = outputFile.resolveSibling(outputFile.getFileName() + ".gz");
+        }
+        return outputFile;
+    }
+
+    private List<StructInfo> sortedStructs() {
+        List<StructInfo> sorted = new ArrayList<>(structs.values());
+        sorted.sort(Comparator.comparing(struct -> struct.name));
+        return sorted;
+    }
+
+    void writeJsonOutput() throws IOException {
+        Path outputFile = getJsonOutputFile();
         Files.createDirectories(outputFile.getParent());
         Files.deleteIfExists(outputFile);
-        ObjectMapper mapper = new ObjectMapper();
-        Map<String, List<Map<String, Object>>> output = new HashMap<>();
-        List<Map<String, Object>> definitions = new ArrayList<>();
+        boolean pretty = Boolean.parseBoolean(config.getProperty("output.json.pretty", "true"));
+
+        // Written straight from StructInfo, one struct at a time, in name order; spilled usages are merged in on the way
+        try (OutputStream out = outputFile.toString().endsWith(".gz")
+                ? new GZIPOutputStream(Files.newOutputStream(outputFile), 64 * 1024)
+                : new BufferedOutputStream(Files.newOutputStream(outputFile), 64 * 1024);
+             JsonGenerator json = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+             UsageSpill.Merge spilled = spill != null ? spill.merge() : null) {
+            if (pretty) {
+                json.useDefaultPrettyPrinter();
+            }
+            LocationWriter location = new LocationWriter(json);
+            json.writeStartObject();
+            json.writeArrayFieldStart("definitions");
+            for (StructInfo struct : sortedStructs()) {
+                json.writeStartObject();
+                json.writeStringField("name", struct.name);
+                json.writeNumberField("count", struct.definitions.size() + struct.usageCount());
+                json.writeArrayFieldStart("definitionFiles");
+                location.writeAll(struct.definitions);
+                json.writeEndArray();
+                json.writeArrayFieldStart("definitionOffsets");
+                for (int i = 0; i < struct.definitions.size(); i++) {
+                    json.writeNumber(struct.definitions.offset(i));
+                }
+                json.writeEndArray();
+                json.writeArrayFieldStart("usageFiles");
+                if (spilled != null) {
+                    spilled.forEach(struct.name, location::write);
+                } else {
+                    location.writeAll(struct.usages);
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+        ANALYSIS_LOG.info("Wrote JSON output to " + outputFile);
+    }
+
+    // Formats each location into a reused buffer instead of creating a String per location
+    private final class LocationWriter {
+        private final JsonGenerator json;
+        private final StringBuilder buffer = new StringBuilder();
+        private char[] chars = new char[64];
 
-        for (StructInfo struct : structs.values()) {
-            Map<String, Object> def = new HashMap<>();
-            def.put("name", struct.name);
-            def.put("count", struct.definitions.size() + struct.usages.size());
-            def.put("definitionFiles", struct.definitions);
-            def.put("usageFiles", struct.usages);
-            definitions.add(def);
+        LocationWriter(JsonGenerator json) {
+            this.json = json;
         }
 
-        output.put("definitions", definitions);
-        try (Writer writer = Files.newBufferedWriter(outputFile)) {
-            mapper.writerWithDefaultPrettyPrinter().writeValue(writer, output);
+        void writeAll(LocationList locations) throws IOException {
+            for (int i = 0; i < locations.size(); i++) {
+                write(locations.fileId(i), locations.line(i));
+            }
+        }
+
+        void write(int fileId, int line) throws IOException {
+            buffer.setLength(0);
+            buffer.append(fileTable.path(fileId)).append(':').append(line);
+            if (chars.length < buffer.length()) {
+                chars = new char[buffer.length() * 2];
+            }
+            buffer.getChars(0, buffer.length(), chars, 0);
+            json.writeString(chars, 0, buffer.length());
         }
-        ANALYSIS_LOG.info("Wrote JSON output to " + outputFile);
     }
 
     private void writeTxtOutput() throws IOException {
@@ -303,71 +741,273 @@ public class Main {
         Path outputFile = baseOutputDir.resolve(outputPath);
         Files.createDirectories(outputFile.getParent());
         Files.deleteIfExists(outputFile);
-        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(outputFile))) {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(outputFile));
+             UsageSpill.Merge spilled = spill != null ? spill.merge() : null) {
             writer.println("Struct Analysis Report");
             writer.println("=====================");
-            for (StructInfo struct : structs.values()) {
+            for (StructInfo struct : sortedStructs()) {
                 writer.println("Struct: " + struct.name);
-                writer.println("Total References: " + (struct.definitions.size() + struct.usages.size()));
-                writer.println("Definitions: " + struct.definitions);
-                writer.println("Usages: " + struct.usages);
+                writer.println("Total References: " + (struct.definitions.size() + struct.usageCount()));
+                writer.print("Definitions: ");
+                printLocations(writer, struct.definitions);
+                writer.print("Usages: ");
+                if (spilled != null) {
+                    printLocations(writer, spilled, struct.name);
+                } else {
+                    printLocations(writer, struct.usages);
+                }
                 writer.println("---------------------");
             }
         }
         ANALYSIS_LOG.info("Wrote TXT output to " + outputFile);
     }
 
-    private void writeError(String errorMessage) {
+    private Path getIndexOutputFile() {
+        String outputPath = config.getProperty("output.index");
+        return outputPath == null || outputPath.trim().isEmpty() ? null : baseOutputDir.resolve(outputPath.trim());
+    }
+
+    private void writeIndexOutput() throws IOException {
+        Path outputFile = getIndexOutputFile();
+        if (outputFile == null) {
+            return;
+        }
+        if (spill != null) {
+            // Removed, so the generator does not pick up an index from an earlier run instead of the new JSON
+            Files.deleteIfExists(outputFile);
+            ANALYSIS_LOG.info("Bounded-memory analysis: skipped the binary struct index, which is built in memory");
+            return;
+        }
+        Files.createDirectories(outputFile.getParent());
+        StructIndexWriter writer = new StructIndexWriter(fileTable);
+        for (StructInfo struct : sortedStructs()) {
+            writer.add(struct.name, struct.definitions, struct.usages);
+        }
+        writer.write(outputFile);
+        ANALYSIS_LOG.info("Wrote binary struct index to " + outputFile);
+    }
+
+    private Path getIncludeReportFile() {
+        String outputPath = config.getProperty("output.includes");
+        return outputPath == null || outputPath.trim().isEmpty() ? null : baseOutputDir.resolve(outputPath.trim());
+    }
+
+    private List<Path> getIncludePaths() {
+        Path sourcePath = discovery.base();
+        List<Path> includePaths = new ArrayList<>();
+        for (String entry : config.getProperty("include.paths", "").split(",")) {
+            if (!entry.isBlank()) {
+                includePaths.add(sourcePath.resolve(entry.trim()));
+            }
+        }
+        return includePaths;
+    }
+
+    private void writeIncludeReport() throws IOException {
+        Path outputFile = getIncludeReportFile();
+        if (outputFile == null) {
+            return;
+        }
+        IncludeGraph graph = IncludeGraph.build(results, new IncludeResolver(getIncludePaths()), this::analyzeFile);
+        int[] directFanIn = graph.directFanIn();
+        int[] unitFanIn = new int[graph.size()];
+        List<Integer> units = new ArrayList<>();
+        List<Integer> headers = new ArrayList<>();
+        for (int id = 0; id < graph.size(); id++) {
+            (graph.isTranslationUnit(id) ? units : headers).add(id);
+        }
+
+        Files.createDirectories(outputFile.getParent());
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(outputFile), 64 * 1024);
+             JsonGenerator json = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            json.useDefaultPrettyPrinter();
+            json.writeStartObject();
+            // Written first while the closures are computed, since the header ranking needs every unit's closure
+            json.writeArrayFieldStart("translationUnits");
+            for (int unit : units) {
+                BitSet visible = graph.closure(unit);
+                Set<String> structNames = new TreeSet<>();
+                graph.result(unit).definitions().forEach(d -> structNames.add(d.name()));
+                json.writeStartObject();
+                json.writeStringField("file", graph.result(unit).path());
+                json.writeArrayFieldStart("headers");
+                for (int header = visible.nextSetBit(0); header >= 0; header = visible.nextSetBit(header + 1)) {
+                    unitFanIn[header]++;
+                    json.writeString(graph.result(header).path());
+                    graph.result(header).definitions().forEach(d -> structNames.add(d.name()));
+                }
+                json.writeEndArray();
+                json.writeArrayFieldStart("visibleStructs");
+                for (String name : structNames) {
+                    json.writeString(name);
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+
+            headers.sort(Comparator.<Integer>comparingInt(id -> unitFanIn[id]).reversed()
+                    .thenComparing(Comparator.<Integer>comparingInt(id -> directFanIn[id]).reversed())
+                    .thenComparing(id -> graph.result(id).path()));
+            json.writeArrayFieldStart("headersByFanIn");
+            for (int header : headers) {
+                json.writeStartObject();
+                json.writeStringField("file", graph.result(header).path());
+                json.writeBooleanField("external", graph.isExternal(header));
+                json.writeNumberField("translationUnits", unitFanIn[header]);
+                json.writeNumberField("directIncluders", directFanIn[header]);
+                json.writeNumberField("definitions", graph.result(header).definitions().size());
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+
+            json.writeArrayFieldStart("unresolved");
+            for (IncludeGraph.Unresolved missing : graph.unresolved()) {
+                json.writeStartObject();
+                json.writeStringField("file", missing.file());
+                json.writeNumberField("line", missing.include().line());
+                json.writeStringField("include", missing.include().system()
+                        ? "<" + missing.include().target() + ">" : "\"" + missing.include().target() + "\"");
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+        ANALYSIS_LOG.info("Include graph: " + graph.analyzedCount() + " analyzed files, " + (graph.size() - graph.analyzedCount())
+                + " external headers, " + graph.resolvedEdges() + " resolved includes onto " + headers.size()
+                + " headers parsed once each, " + graph.unresolved().size() + " unresolved; wrote " + outputFile);
+    }
+
+    private Path getLayoutReportFile() {
+        String outputPath = config.getProperty("layout.report");
+        return outputPath == null || outputPath.trim().isEmpty() ? null : baseOutputDir.resolve(outputPath.trim());
+    }
+
+    private void writeLayoutReport() throws IOException {
+        Path outputFile = getLayoutReportFile();
+        if (outputFile == null) {
+            return;
+        }
+        // The first body of each struct in path order is the one laid out, as with duplicate definitions in a build
+        Map<String, StructBody> bodies = new HashMap<>();
+        Map<String, String> locations = new HashMap<>();
+        for (FileResult result : results.values()) {
+            for (StructBody body : result.bodies()) {
+                if (bodies.putIfAbsent(body.name(), body) == null) {
+                    int line = result.definitions().stream()
+                            .filter(d -> d.name().equals(body.name()) && d.kind() != StructKind.FORWARD)
+                            .mapToInt(StructDefinition::line).findFirst().orElse(0);
+                    locations.put(body.name(), result.path() + ":" + line);
+                }
+            }
+        }
+        Abi abi = Abi.fromConfig(config.getProperty("layout.abi"));
+        int cacheLine = Integer.parseInt(config.getProperty("layout.cache.line", "64").trim());
+        LayoutReport report = new LayoutReport(new LayoutCalculator(abi, bodies::get), cacheLine);
+        for (StructInfo struct : sortedStructs()) {
+            StructBody body = bodies.get(struct.name);
+            if (body != null) {
+                report.add(body, locations.get(struct.name), struct.usageCount());
+            }
+        }
+        for (String reason : report.skipped()) {
+            ANALYSIS_LOG.log(Level.FINE, () -> "Layout skipped for " + reason);
+        }
+        Files.createDirectories(outputFile.getParent());
+        report.write(outputFile);
+        ANALYSIS_LOG.info("Wrote " + abi + " layout report for " + (bodies.size() - report.skipped().size()) + " structs to "
+                + outputFile + " (" + report.skipped().size() + " could not be laid out)");
+    }
+
+    // Same "[a, b]" layout as List.toString, without building the whole line in memory first
+    private void printLocations(PrintWriter writer, LocationList locations) {
+        writer.print('[');
+        for (int i = 0; i < locations.size(); i++) {
+            if (i > 0) writer.print(", ");
+            writer.print(fileTable.path(locations.fileId(i)));
+            writer.print(':');
+            writer.print(locations.line(i));
+        }
+        writer.println(']');
+    }
+
+    private void printLocations(PrintWriter writer, UsageSpill.Merge spilled, String name) throws IOException {
+        writer.print('[');
+        int[] printed = {0};
+        spilled.forEach(name, (fileId, line) -> {
+            if (printed[0]++ > 0) writer.print(", ");
+            writer.print(fileTable.path(fileId));
+            writer.print(':');
+            writer.print(line);
+        });
+        writer.println(']');
+    }
+
+    private Path getErrorFile() {
         String errorPath = config.getProperty("error.file");
         if (errorPath == null || errorPath.trim().isEmpty()) {
-            ANALYSIS_LOG.warning("error.file not specified in config, logging error to analysis.log only: " + errorMessage);
-            return;
+            return null;
         }
+        return baseOutputDir.resolve(errorPath.trim());
+    }
+
+    // A fresh sink per full analysis, so the error file lists the errors of the current tree only
+    private void openErrorSink() throws IOException {
+        closeErrorSink();
+        errorSink = ErrorSink.open(getErrorFile(), ANALYSIS_LOG);
+    }
+
+    private void closeErrorSink() {
+        ErrorSink current = errorSink;
+        if (current == null) return;
         try {
-            Path errorFile = baseOutputDir.resolve(errorPath);
-            Files.createDirectories(errorFile.getParent());
-            Files.write(errorFile, (errorMessage + "\n").getBytes(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            current.close();
         } catch (IOException e) {
-            ANALYSIS_LOG.severe("Failed to write error to " + errorPath + ": " + e.getMessage());
+            ANALYSIS_LOG.severe("Failed to close error file: " + e.getMessage());
         }
     }
 
-    private void generateClasses() throws IOException {
-        String structsTablePath = config.getProperty("output.json");
-        String sourceDir = config.getProperty("source.dirs");
-        Path genDir = baseOutputDir.resolve("generated");
-        Path structsTable = baseOutputDir.resolve(structsTablePath);
-        PojoGenerator generator = new PojoGenerator(genDir, structsTable, sourceDir, Logger.getLogger("org.currierg.Generator"));
-        generator.generate();
+    private void reportErrors(FileResult result) {
+        for (AnalysisError error : result.errors()) {
+            errorSink.report(result.path(), error);
+        }
     }
 
-    private static class StructMatch {
-        final String content;
-        final Path file;
-        final int start;
-
-        StructMatch(String content, Path file, int start) {
-            this.content = content;
-            this.file = file;
-            this.start = start;
-        }
+    void generateClasses() throws IOException {
+        String sourceDir = discovery.base().toString();
+        Path genDir = baseOutputDir.resolve("generated");
+        // Prefer the binary index when the analysis wrote one; the generator accepts either format
+        Path index = getIndexOutputFile();
+        Path structsTable = index != null && Files.exists(index) ? index : getJsonOutputFile();
+        Logger generatorLogger = Logger.getLogger("org.currierg.Generator");
+        Metrics generateMetrics = new Metrics("generate", metricsSlowestFiles());
+        PojoGenerator generator = new PojoGenerator(genDir, structsTable, sourceDir, GenerateOptions.fromConfig(config),
+                generateMetrics, generatorLogger);
+        generator.generate();
+        writeMetrics(generateMetrics, "generate.metrics", new LogUtil(generatorLogger));
     }
 
     private static class StructInfo {
         final String name;
-        final List<String> definitions = new ArrayList<>();
-        final List<String> usages = new ArrayList<>();
+        final LocationList definitions = new LocationList();
+        final LocationList usages = new LocationList();
+        // Usages left on disk by a bounded-memory analysis; only their count is kept
+        int spilledUsages;
 
         StructInfo(String name) {
             this.name = name;
         }
 
-        void addDefinition(String location) {
-            definitions.add(location);
+        int usageCount() {
+            return usages.size() + spilledUsages;
+        }
+
+        void addDefinition(int fileId, int line, int offset) {
+            definitions.add(fileId, line, offset);
         }
 
-        void addUsage(String location) {
-            usages.add(location);
+        void addUsage(int fileId, int line) {
+            usages.add(fileId, line);
         }
     }
 
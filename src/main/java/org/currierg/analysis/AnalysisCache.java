@@ -0,0 +1,151 @@
+package org.currierg.analysis;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.currierg.util.LogUtil;
+
+/**
+ * Per-file analysis results persisted between runs. An entry is reused when the file's size and modification time
+ * are unchanged, or, if they changed, when its content hash still matches. Only entries looked up during the current
+ * run are saved back, so results for deleted files drop out of the cache. Results that hit the match budget are
+ * never stored.
+ */
+public class AnalysisCache {
+    private static final int VERSION = 8;
+
+    private final Path cacheFile;
+    private final String fingerprint;
+    private final Map<String, Entry> previous;
+    private final Map<String, Entry> retained = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public record Entry(long size, long modified, String hash, FileResult result) {
+    }
+
+    private record CacheFile(int version, String fingerprint, Map<String, Entry> entries) {
+    }
+
+    private AnalysisCache(Path cacheFile, String fingerprint, Map<String, Entry> previous) {
+        this.cacheFile = cacheFile;
+        this.fingerprint = fingerprint;
+        this.previous = previous;
+    }
+
+    /**
+     * Loads the cache, discarding it if it was written by another cache version or with a different fingerprint
+     * (anything besides file content that changes results, such as the source root or detection engine).
+     */
+    public static AnalysisCache load(Path cacheFile, String fingerprint, LogUtil log) {
+        Map<String, Entry> entries = new HashMap<>();
+        if (Files.exists(cacheFile)) {
+            try (InputStream in = Files.newInputStream(cacheFile)) {
+                CacheFile data = new ObjectMapper().readValue(in, CacheFile.class);
+                if (data.version() == VERSION && fingerprint.equals(data.fingerprint()) && data.entries() != null) {
+                    entries = data.entries();
+                } else {
+                    log.info("Analysis cache " + cacheFile + " is out of date, starting fresh");
+                }
+            } catch (IOException e) {
+                log.warning("Failed to read analysis cache " + cacheFile + ", starting fresh: " + e.getMessage());
+            }
+        }
+        return new AnalysisCache(cacheFile, fingerprint, entries);
+    }
+
+    public FileResult get(Path file, Function<Path, FileResult> analyzer) {
+        String key = file.toAbsolutePath().normalize().toString();
+        long size;
+        long modified;
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            size = attrs.size();
+            modified = attrs.lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            misses.increment();
+            return analyzer.apply(file);
+        }
+
+        Entry entry = previous.get(key);
+        if (entry != null && entry.size() == size && entry.modified() == modified) {
+            hits.increment();
+            retained.put(key, entry);
+            return entry.result();
+        }
+
+        String hash = hash(file);
+        if (entry != null && hash != null && hash.equals(entry.hash())) {
+            hits.increment();
+            retained.put(key, new Entry(size, modified, hash, entry.result()));
+            return entry.result();
+        }
+
+        misses.increment();
+        FileResult result = analyzer.apply(file);
+        // A fallback depends on how busy the machine was, not only on the file, so such results are redone next run
+        if (hash != null && !result.usedFallback()) {
+            retained.put(key, new Entry(size, modified, hash, result));
+        }
+        return result;
+    }
+
+    /** Drops a file that no longer exists, so it is not saved back. */
+    public void forget(Path file) {
+        retained.remove(file.toAbsolutePath().normalize().toString());
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    /** Number of previously cached files that were not seen in this run. */
+    public long removed() {
+        return previous.keySet().stream().filter(k -> !retained.containsKey(k)).count();
+    }
+
+    public synchronized void save() throws IOException {
+        Files.createDirectories(cacheFile.toAbsolutePath().getParent());
+        Path tmp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            new ObjectMapper().writeValue(out, new CacheFile(VERSION, fingerprint, new HashMap<>(retained)));
+        }
+        Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static String hash(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            while (channel.read(buffer) >= 0) {
+                digest.update(buffer.flip());
+                buffer.clear();
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.currierg.analysis;
+
+/**
+ * Selectable struct detection engines ({@code analysis.engine} in config.properties).
+ */
+public enum AnalysisEngine {
+    REGEX(new RegexStructDetector()),
+    LEXER(new StructRecognizer());
+
+    private final StructDetector detector;
+
+    AnalysisEngine(StructDetector detector) {
+        this.detector = detector;
+    }
+
+    public StructDetector detector() {
+        return detector;
+    }
+
+    public static AnalysisEngine fromConfig(String value) {
+        if (value == null || value.isBlank()) {
+            return REGEX;
+        }
+        return valueOf(value.trim().toUpperCase());
+    }
+}
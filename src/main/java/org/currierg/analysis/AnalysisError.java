@@ -0,0 +1,22 @@
+package org.currierg.analysis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * An error on a 1-based line of the file that produced it (0 when it concerns the whole file). The snippet hash is a
+ * CRC32 of the offending source text, so the same bad construct can be recognised across files and runs without
+ * storing it; it is null when there is no snippet.
+ */
+public record AnalysisError(ErrorKind kind, int line, String snippetHash, String message) {
+
+    public static AnalysisError of(ErrorKind kind, int line, CharSequence snippet, String message) {
+        return new AnalysisError(kind, line, snippet == null ? null : hash(snippet), message);
+    }
+
+    private static String hash(CharSequence snippet) {
+        CRC32 crc = new CRC32();
+        crc.update(snippet.toString().getBytes(StandardCharsets.UTF_8));
+        return String.format("%08x", crc.getValue());
+    }
+}
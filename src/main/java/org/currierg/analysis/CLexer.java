@@ -0,0 +1,201 @@
+package org.currierg.analysis;
+
+import java.nio.CharBuffer;
+
+/**
+ * Streaming C tokenizer. Produces one token at a time without allocating token objects; the current token is read
+ * through {@link #token()}, {@link #start()}, {@link #end()} and friends. Comments and whitespace are skipped, string
+ * and character literals are consumed whole, preprocessor lines (including backslash continuations) come back as a
+ * single {@link Token#PREPROCESSOR} token, and brace depth is tracked across the stream.
+ */
+public final class CLexer {
+    public enum Token {
+        IDENTIFIER, NUMBER, STRING, CHAR, PUNCT, PREPROCESSOR, EOF
+    }
+
+    private final CharSequence text;
+    private final int length;
+    private int pos;
+    private boolean lineStart = true;
+    private int depth;
+
+    private Token token;
+    private int start;
+    private int end;
+
+    public CLexer(CharSequence text) {
+        this.text = text;
+        this.length = text.length();
+    }
+
+    public CLexer(char[] chars) {
+        this(CharBuffer.wrap(chars));
+    }
+
+    public Token next() {
+        while (pos < length) {
+            char c = text.charAt(pos);
+            if (c == '\n') {
+                lineStart = true;
+                pos++;
+            } else if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (c == '/' && peek(1) == '/') {
+                skipToLineEnd();
+            } else if (c == '/' && peek(1) == '*') {
+                skipBlockComment();
+            } else {
+                return scan(c);
+            }
+        }
+        return set(Token.EOF, length, length);
+    }
+
+    public Token token() {
+        return token;
+    }
+
+    public int start() {
+        return start;
+    }
+
+    public int end() {
+        return end;
+    }
+
+    /** Brace depth after the current token. */
+    public int depth() {
+        return depth;
+    }
+
+    public String text() {
+        return text.subSequence(start, end).toString();
+    }
+
+    /** True if the current token is the given single punctuation character. */
+    public boolean is(char punct) {
+        return token == Token.PUNCT && text.charAt(start) == punct;
+    }
+
+    /** True if the current token is the given identifier or keyword; compares in place without allocating. */
+    public boolean is(String identifier) {
+        if (token != Token.IDENTIFIER || end - start != identifier.length()) {
+            return false;
+        }
+        for (int i = 0; i < identifier.length(); i++) {
+            if (text.charAt(start + i) != identifier.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Token scan(char c) {
+        int tokenStart = pos;
+        if (c == '#' && lineStart) {
+            scanDirective();
+            return set(Token.PREPROCESSOR, tokenStart, pos);
+        }
+        lineStart = false;
+        if (isIdentifierStart(c)) {
+            pos++;
+            while (pos < length && isIdentifierPart(text.charAt(pos))) pos++;
+            return set(Token.IDENTIFIER, tokenStart, pos);
+        }
+        if (Character.isDigit(c) || (c == '.' && Character.isDigit(peek(1)))) {
+            scanNumber();
+            return set(Token.NUMBER, tokenStart, pos);
+        }
+        if (c == '"' || c == '\'') {
+            scanQuoted(c);
+            return set(c == '"' ? Token.STRING : Token.CHAR, tokenStart, pos);
+        }
+        pos++;
+        if (c == '{') {
+            depth++;
+        } else if (c == '}' && depth > 0) {
+            depth--;
+        }
+        return set(Token.PUNCT, tokenStart, pos);
+    }
+
+    private void scanDirective() {
+        while (pos < length) {
+            char c = text.charAt(pos);
+            if (c == '\\' && (peek(1) == '\n' || (peek(1) == '\r' && peek(2) == '\n'))) {
+                pos += peek(1) == '\r' ? 3 : 2;
+            } else if (c == '\n') {
+                return;
+            } else if (c == '/' && peek(1) == '*') {
+                skipBlockComment();
+            } else {
+                pos++;
+            }
+        }
+    }
+
+    private void scanNumber() {
+        pos++;
+        while (pos < length) {
+            char c = text.charAt(pos);
+            char prev = text.charAt(pos - 1);
+            if (isIdentifierPart(c) || c == '.'
+                    || ((c == '+' || c == '-') && (prev == 'e' || prev == 'E' || prev == 'p' || prev == 'P'))) {
+                pos++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void scanQuoted(char quote) {
+        pos++;
+        while (pos < length) {
+            char c = text.charAt(pos);
+            if (c == '\\') {
+                pos += 2;
+            } else if (c == quote) {
+                pos++;
+                return;
+            } else if (c == '\n') {
+                return; // unterminated literal, stop at end of line
+            } else {
+                pos++;
+            }
+        }
+        pos = Math.min(pos, length);
+    }
+
+    private void skipToLineEnd() {
+        while (pos < length && text.charAt(pos) != '\n') pos++;
+    }
+
+    private void skipBlockComment() {
+        pos += 2;
+        while (pos < length && !(text.charAt(pos) == '*' && peek(1) == '/')) {
+            if (text.charAt(pos) == '\n') lineStart = true;
+            pos++;
+        }
+        pos = Math.min(pos + 2, length);
+    }
+
+    private char peek(int ahead) {
+        int i = pos + ahead;
+        return i < length ? text.charAt(i) : '\0';
+    }
+
+    private Token set(Token token, int start, int end) {
+        this.token = token;
+        this.start = start;
+        this.end = end;
+        return token;
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return Character.isLetter(c) || c == '_' || c == '$';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
@@ -0,0 +1,73 @@
+package org.currierg.analysis;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+import org.currierg.util.LogUtil;
+
+/**
+ * Runs two struct detectors over the same text, returns the primary engine's result and accumulates timing and
+ * accuracy figures so the engines can be compared on a real tree. Safe to share between analysis workers.
+ */
+public class EngineComparison {
+    private final AnalysisEngine primary;
+    private final AnalysisEngine secondary;
+    private final LogUtil log;
+    private final LongAdder primaryNanos = new LongAdder();
+    private final LongAdder secondaryNanos = new LongAdder();
+    private final LongAdder primaryCount = new LongAdder();
+    private final LongAdder secondaryCount = new LongAdder();
+    private final LongAdder mismatchedFiles = new LongAdder();
+    private final LongAdder files = new LongAdder();
+
+    public EngineComparison(AnalysisEngine primary, LogUtil log) {
+        this.primary = primary;
+        this.secondary = primary == AnalysisEngine.REGEX ? AnalysisEngine.LEXER : AnalysisEngine.REGEX;
+        this.log = log;
+    }
+
+    public List<StructDeclaration> detect(String file, CharSequence text) {
+        long t0 = System.nanoTime();
+        List<StructDeclaration> first = primary.detector().detect(text);
+        long t1 = System.nanoTime();
+        List<StructDeclaration> second = secondary.detector().detect(text);
+        long t2 = System.nanoTime();
+
+        primaryNanos.add(t1 - t0);
+        secondaryNanos.add(t2 - t1);
+        primaryCount.add(first.size());
+        secondaryCount.add(second.size());
+        files.increment();
+
+        Set<String> onlyPrimary = keys(first);
+        Set<String> onlySecondary = keys(second);
+        Set<String> common = new HashSet<>(onlyPrimary);
+        common.retainAll(onlySecondary);
+        onlyPrimary.removeAll(common);
+        onlySecondary.removeAll(common);
+        if (!onlyPrimary.isEmpty() || !onlySecondary.isEmpty()) {
+            mismatchedFiles.increment();
+            log.log(Level.FINE, () -> "Engine mismatch in " + file + ": only " + primary + " " + onlyPrimary
+                    + ", only " + secondary + " " + onlySecondary);
+        }
+        return first;
+    }
+
+    public String summary() {
+        return String.format("Engine comparison over %d files (%d with differing results): %s found %d in %d ms, %s found %d in %d ms",
+                files.sum(), mismatchedFiles.sum(),
+                primary, primaryCount.sum(), primaryNanos.sum() / 1_000_000,
+                secondary, secondaryCount.sum(), secondaryNanos.sum() / 1_000_000);
+    }
+
+    private static Set<String> keys(List<StructDeclaration> declarations) {
+        Set<String> keys = new HashSet<>();
+        for (StructDeclaration d : declarations) {
+            keys.add(d.name() + "@" + d.start());
+        }
+        return keys;
+    }
+}
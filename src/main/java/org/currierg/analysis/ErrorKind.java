@@ -0,0 +1,13 @@
+package org.currierg.analysis;
+
+/**
+ * Categories of per-file analysis errors, used to group them in the error summary.
+ */
+public enum ErrorKind {
+    // A struct construct matched but no name could be taken from it
+    INVALID_STRUCT_MATCH,
+    // The file could not be read or decoded
+    IO_ERROR,
+    // A regex ran over the file's match budget or overflowed the stack, and that step was redone by a linear scan
+    REGEX_FALLBACK
+}
@@ -0,0 +1,128 @@
+package org.currierg.analysis;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.currierg.util.LogUtil;
+
+/**
+ * Error file ({@code error.file} in config.properties) kept open for a whole analysis run. Each error is one JSON
+ * Lines record with file, line, kind, snippetHash and message; records are buffered and reach the disk on
+ * {@link #flush()} or {@link #close()}. The file is truncated when the sink is opened, so it always describes the
+ * latest run. Without a file, errors only go to the analysis log. Safe to use from several threads.
+ */
+public class ErrorSink implements Closeable {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Path file;
+    private final LogUtil log;
+    private final BufferedWriter writer;
+    private final JsonGenerator json;
+    private final Map<ErrorKind, KindSummary> byKind = new EnumMap<>(ErrorKind.class);
+    private long count;
+
+    private static final class KindSummary {
+        long count;
+        final Set<String> files = new HashSet<>();
+        final Set<String> snippets = new HashSet<>();
+    }
+
+    private ErrorSink(Path file, LogUtil log) throws IOException {
+        this.file = file;
+        this.log = log;
+        if (file == null) {
+            this.writer = null;
+            this.json = null;
+            return;
+        }
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.writer = Files.newBufferedWriter(file);
+        this.json = JSON_FACTORY.createGenerator(writer);
+        // Records are separated by the newline written after each one, not by the default space
+        json.setRootValueSeparator(null);
+    }
+
+    /** Opens a sink writing to the file, or one that only logs when the file is null. */
+    public static ErrorSink open(Path file, LogUtil log) throws IOException {
+        return new ErrorSink(file, log);
+    }
+
+    public synchronized void report(String path, AnalysisError error) {
+        count++;
+        KindSummary summary = byKind.computeIfAbsent(error.kind(), k -> new KindSummary());
+        summary.count++;
+        summary.files.add(path);
+        if (error.snippetHash() != null) {
+            summary.snippets.add(error.snippetHash());
+        }
+        if (json == null) {
+            log.warning(() -> "error.file not specified in config, logging error to analysis.log only: "
+                    + error.kind() + " in " + path + ":" + error.line() + ": " + error.message());
+            return;
+        }
+        try {
+            json.writeStartObject();
+            json.writeStringField("file", path);
+            json.writeNumberField("line", error.line());
+            json.writeStringField("kind", error.kind().name());
+            json.writeStringField("snippetHash", error.snippetHash());
+            json.writeStringField("message", error.message());
+            json.writeEndObject();
+            json.writeRaw('\n');
+        } catch (IOException e) {
+            log.severe("Failed to write error to " + file + ": " + e.getMessage());
+        }
+    }
+
+    public synchronized long count() {
+        return count;
+    }
+
+    /** e.g. "3 errors: INVALID_STRUCT_MATCH 2 in 1 files (1 distinct snippets), IO_ERROR 1 in 1 files" */
+    public synchronized String summary() {
+        StringBuilder text = new StringBuilder().append(count).append(" errors");
+        String separator = ": ";
+        for (Map.Entry<ErrorKind, KindSummary> entry : byKind.entrySet()) {
+            KindSummary summary = entry.getValue();
+            text.append(separator).append(entry.getKey()).append(' ').append(summary.count)
+                    .append(" in ").append(summary.files.size()).append(" files");
+            if (!summary.snippets.isEmpty()) {
+                text.append(" (").append(summary.snippets.size()).append(" distinct snippets)");
+            }
+            separator = ", ";
+        }
+        if (file != null) {
+            text.append(", written to ").append(file);
+        }
+        return text.toString();
+    }
+
+    public synchronized void flush() {
+        if (json == null) {
+            return;
+        }
+        try {
+            json.flush();
+        } catch (IOException e) {
+            log.severe("Failed to flush " + file + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (json != null) {
+            json.close();
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package org.currierg.analysis;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.currierg.util.LogUtil;
+
+/**
+ * Finds the source files under one or more roots ({@code source.dirs}, comma-separated) and feeds them to the parsing
+ * workers while the walk is still running. Directories are listed in parallel and every accepted file goes through a
+ * bounded queue, so walking and parsing overlap and a fast walk cannot run ahead of the workers by more than the queue.
+ * The include/exclude globs are compiled once and matched against the path relative to its root; an exclude glob
+ * ending in {@code /**} also prunes the matching directories, which are then never listed.
+ *
+ * <p>Relative paths are taken from the closest directory containing every root ({@link #base()}), which is the root
+ * itself when there is only one, so outputs keep their existing paths. A root that repeats another or lies inside one
+ * is dropped with a warning, so no file is walked and parsed twice.
+ */
+public class FileDiscovery {
+    private static final Path END = Paths.get("");
+
+    private final List<Path> roots;
+    private final Path base;
+    private final PathMatcher include;
+    private final PathMatcher exclude;
+    private final PathMatcher excludeDir;
+    private final int maxFiles;
+    private final LogUtil log;
+    private volatile boolean truncated;
+    private volatile int found;
+    private final AtomicInteger directories = new AtomicInteger();
+
+    public FileDiscovery(List<Path> roots, String includePattern, String excludePattern, int maxFiles, LogUtil log) {
+        if (roots.isEmpty()) {
+            throw new IllegalArgumentException("source.dirs is not specified in config");
+        }
+        this.roots = outermost(roots.stream().map(root -> root.toAbsolutePath().normalize()).toList(), log);
+        this.base = commonBase(this.roots);
+        this.include = compile(includePattern);
+        this.exclude = compile(excludePattern);
+        this.excludeDir = excludePattern != null && excludePattern.endsWith("/**")
+                ? compile(excludePattern.substring(0, excludePattern.length() - 3)) : null;
+        this.maxFiles = maxFiles;
+        this.log = log;
+    }
+
+    /** Splits a comma-separated {@code source.dirs} value. */
+    public static List<Path> parseRoots(String value) {
+        List<Path> roots = new ArrayList<>();
+        if (value != null) {
+            for (String entry : value.split(",")) {
+                if (!entry.isBlank()) {
+                    roots.add(Paths.get(entry.trim()));
+                }
+            }
+        }
+        return roots;
+    }
+
+    // Keeps, in configured order, the roots not inside another root; of repeated roots only the first is kept
+    private static List<Path> outermost(List<Path> roots, LogUtil log) {
+        List<Path> kept = new ArrayList<>();
+        for (int i = 0; i < roots.size(); i++) {
+            Path root = roots.get(i);
+            Path outer = roots.stream().filter(other -> root.startsWith(other) && !root.equals(other)).findFirst().orElse(null);
+            if (outer != null) {
+                log.warning("Dropping source.dirs root " + root + ": inside " + outer);
+            } else if (roots.subList(0, i).contains(root)) {
+                log.warning("Dropping source.dirs root " + root + ": listed twice");
+            } else {
+                kept.add(root);
+            }
+        }
+        return List.copyOf(kept);
+    }
+
+    private static Path commonBase(List<Path> roots) {
+        Path base = roots.get(0);
+        for (Path root : roots) {
+            while (base != null && !root.startsWith(base)) {
+                base = base.getParent();
+            }
+        }
+        if (base == null) {
+            throw new IllegalArgumentException("source.dirs roots share no common directory: " + roots);
+        }
+        return base;
+    }
+
+    private static PathMatcher compile(String pattern) {
+        return pattern == null || pattern.isEmpty() ? null : FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+    }
+
+    public List<Path> roots() {
+        return roots;
+    }
+
+    public Path base() {
+        return base;
+    }
+
+    /** Number of directories listed by the last {@link #process}. */
+    public int directories() {
+        return directories.get();
+    }
+
+    /** True if the last {@link #process} left files out because {@code max.files} was exceeded. */
+    public boolean truncated() {
+        return truncated;
+    }
+
+    /** Whether a file (not necessarily existing) would be picked up by a walk; used for watch events. */
+    public boolean accepts(Path file) {
+        Path absolute = file.toAbsolutePath().normalize();
+        for (Path root : roots) {
+            if (absolute.startsWith(root) && !absolute.equals(root)) {
+                Path relative = root.relativize(absolute);
+                if (excludeDir != null) {
+                    for (Path dir = relative.getParent(); dir != null; dir = dir.getParent()) {
+                        if (excludeDir.matches(dir)) return false;
+                    }
+                }
+                return matches(relative);
+            }
+        }
+        return false;
+    }
+
+    private boolean matches(Path relative) {
+        return include != null && include.matches(relative) && (exclude == null || !exclude.matches(relative));
+    }
+
+    /**
+     * Walks all roots with {@code walkers} threads and applies the task to every accepted file on {@code workers}
+     * threads, handing files over through a queue of {@code queueCapacity}. Returns the results sorted by path, so
+     * the outcome does not depend on walk or scheduling order. With {@code max.files} set, the whole tree is walked
+     * first and only the first files in path order are processed, so the same tree always yields the same subset;
+     * walking and parsing then no longer overlap.
+     */
+    public <R> Map<Path, R> process(int walkers, int workers, int queueCapacity, Function<Path, R> task) throws IOException {
+        BlockingQueue<Path> queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        Map<Path, R> results = new ConcurrentHashMap<>();
+        List<Path> collected = maxFiles > 0 ? Collections.synchronizedList(new ArrayList<>()) : null;
+        AtomicInteger pendingDirectories = new AtomicInteger(roots.size());
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        truncated = false;
+        directories.set(0);
+
+        ExecutorService walkPool = Executors.newFixedThreadPool(Math.max(1, walkers), daemon("discovery"));
+        ExecutorService workPool = Executors.newFixedThreadPool(Math.max(1, workers), daemon("analysis"));
+        try {
+            for (int i = 0; i < Math.max(1, workers); i++) {
+                workPool.execute(() -> {
+                    try {
+                        for (Path file = queue.take(); file != END; file = queue.take()) {
+                            // After a failure keep draining, so walkers blocked on a full queue can finish
+                            if (failure.get() != null) continue;
+                            try {
+                                results.put(file, task.apply(file));
+                            } catch (RuntimeException | Error e) {
+                                failure.compareAndSet(null, e);
+                                stop.set(true);
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+
+            Runnable finished = () -> {
+                if (collected != null && failure.get() == null) {
+                    feedFirst(collected, queue, stop);
+                }
+                for (int i = 0; i < Math.max(1, workers); i++) {
+                    putQuietly(queue, END);
+                }
+            };
+            for (Path root : roots) {
+                walkPool.execute(() -> walk(root, root, walkPool, queue, collected, pendingDirectories, stop, failure, finished));
+            }
+
+            workPool.shutdown();
+            if (!workPool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS)) {
+                throw new IOException("Analysis did not finish");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Analysis interrupted", e);
+        } finally {
+            walkPool.shutdownNow();
+            workPool.shutdownNow();
+        }
+
+        Throwable error = failure.get();
+        if (error instanceof IOException io) {
+            throw io;
+        } else if (error != null) {
+            throw new IOException("Parallel analysis failed: " + error.getMessage(), error);
+        }
+        if (truncated) {
+            log.warning("Limited discovery to the first " + maxFiles + " of " + found
+                    + " files in path order (max.files); results cover part of the tree");
+        }
+        return new TreeMap<>(results);
+    }
+
+    private void walk(Path root, Path dir, ExecutorService walkPool, BlockingQueue<Path> queue, List<Path> collected,
+                      AtomicInteger pendingDirectories, AtomicBoolean stop, AtomicReference<Throwable> failure,
+                      Runnable finished) {
+        try {
+            if (stop.get()) return;
+            directories.incrementAndGet();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    if (stop.get()) return;
+                    BasicFileAttributes attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    Path relative = root.relativize(entry);
+                    if (attrs.isDirectory()) {
+                        if (excludeDir != null && excludeDir.matches(relative)) continue;
+                        pendingDirectories.incrementAndGet();
+                        walkPool.execute(() -> walk(root, entry, walkPool, queue, collected, pendingDirectories, stop, failure, finished));
+                    } else if ((attrs.isRegularFile() || attrs.isSymbolicLink() && Files.isRegularFile(entry)) && matches(relative)) {
+                        if (collected != null) {
+                            collected.add(entry);
+                        } else {
+                            queue.put(entry);
+                        }
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Like the sequential walk: a directory that cannot be listed fails the run
+            failure.compareAndSet(null, e);
+            stop.set(true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (pendingDirectories.decrementAndGet() == 0) {
+                finished.run();
+            }
+        }
+    }
+
+    // Hands the first max.files paths in path order to the workers once the walk is complete
+    private void feedFirst(List<Path> collected, BlockingQueue<Path> queue, AtomicBoolean stop) {
+        List<Path> sorted = new ArrayList<>(collected);
+        sorted.sort(null);
+        found = sorted.size();
+        truncated = sorted.size() > maxFiles;
+        try {
+            for (Path file : sorted.subList(0, Math.min(maxFiles, sorted.size()))) {
+                if (stop.get()) return;
+                queue.put(file);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void putQuietly(BlockingQueue<Path> queue, Path path) {
+        try {
+            queue.put(path);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package org.currierg.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.currierg.layout.StructBody;
+
+/**
+ * Everything one file contributes to the analysis, kept apart from the shared struct table until it is merged.
+ * The relative path is held once for the whole file; definitions and usages only carry line numbers. Usages are
+ * candidates only; they are resolved against the struct table at merge time. Bodies hold the parsed fields of
+ * definitions for the layout report and are only collected when it is enabled. Includes are recorded as written;
+ * they are resolved into the include graph after all files are scanned.
+ */
+public record FileResult(String path, List<StructDefinition> definitions, List<StructBody> bodies, List<StructUsage> usages,
+                         List<IncludeDirective> includes, List<AnalysisError> errors) {
+
+    public static FileResult empty(String path) {
+        return new FileResult(path, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+    }
+
+    public void addDefinition(String name, StructKind kind, int line, int offset) {
+        definitions.add(new StructDefinition(name, kind, line, offset));
+    }
+
+    public void addBody(StructBody body) {
+        bodies.add(body);
+    }
+
+    public void addUsage(String name, int line) {
+        usages.add(new StructUsage(name, line));
+    }
+
+    public void addInclude(String target, boolean system, int line) {
+        includes.add(new IncludeDirective(target, system, line));
+    }
+
+    public void addError(ErrorKind kind, int line, CharSequence snippet, String message) {
+        errors.add(AnalysisError.of(kind, line, snippet, message));
+    }
+
+    /** Whether a pattern ran over the match budget, so part of the result came from a linear fallback scan. */
+    public boolean usedFallback() {
+        return errors.stream().anyMatch(error -> error.kind() == ErrorKind.REGEX_FALLBACK);
+    }
+}
@@ -0,0 +1,38 @@
+package org.currierg.analysis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns relative file paths to dense int ids, so each path String exists once per run no matter how many
+ * locations point into the file. Not thread-safe; ids are assigned on the thread that merges results.
+ */
+public final class FileTable {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> paths = new ArrayList<>();
+
+    public int intern(String path) {
+        Integer id = ids.get(path);
+        if (id == null) {
+            id = paths.size();
+            ids.put(path, id);
+            paths.add(path);
+        }
+        return id;
+    }
+
+    public String path(int id) {
+        return paths.get(id);
+    }
+
+    public int size() {
+        return paths.size();
+    }
+
+    /** Formats a location as {@code "relative/path:line"}. */
+    public String format(LocationList locations, int index) {
+        return path(locations.fileId(index)) + ":" + locations.line(index);
+    }
+}
@@ -0,0 +1,7 @@
+package org.currierg.analysis;
+
+/**
+ * An {@code #include} directive on a 1-based line: the target as written, and whether it used angle brackets.
+ */
+public record IncludeDirective(String target, boolean system, int line) {
+}
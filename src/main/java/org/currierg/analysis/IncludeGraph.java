@@ -0,0 +1,136 @@
+package org.currierg.analysis;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Header dependency graph over the analyzed files. Every file is a node holding its single {@link FileResult}, so a
+ * header's definitions are parsed once and shared by all includers. Headers reached through the include paths but
+ * outside the analyzed tree are parsed once on first reach and become external nodes. Translation units are the
+ * analyzed files that are not headers; what each one sees is its transitive include closure, computed with include
+ * guard semantics (every header counted once, cycles ignored).
+ */
+public class IncludeGraph {
+    private final List<Path> paths = new ArrayList<>();
+    private final List<FileResult> results = new ArrayList<>();
+    private final List<int[]> edges = new ArrayList<>();
+    private final Map<Path, Integer> ids = new HashMap<>();
+    private final List<Unresolved> unresolved = new ArrayList<>();
+    private final int analyzedCount;
+    private int resolvedEdges;
+
+    public record Unresolved(String file, IncludeDirective include) {
+    }
+
+    private IncludeGraph(Map<Path, FileResult> analyzed) {
+        for (Map.Entry<Path, FileResult> entry : analyzed.entrySet()) {
+            node(entry.getKey().toAbsolutePath().normalize(), entry.getValue());
+        }
+        this.analyzedCount = paths.size();
+    }
+
+    /**
+     * @param analyzed results of the analyzed files, in output order
+     * @param external parses a header outside the analyzed tree; called at most once per header
+     */
+    public static IncludeGraph build(Map<Path, FileResult> analyzed, IncludeResolver resolver, Function<Path, FileResult> external) {
+        IncludeGraph graph = new IncludeGraph(analyzed);
+        // Nodes appended while resolving (external headers) are visited by the same loop
+        for (int id = 0; id < graph.paths.size(); id++) {
+            Path includer = graph.paths.get(id);
+            FileResult result = graph.results.get(id);
+            List<Integer> targets = new ArrayList<>(result.includes().size());
+            for (IncludeDirective include : result.includes()) {
+                Path target = resolver.resolve(includer, include);
+                if (target == null) {
+                    graph.unresolved.add(new Unresolved(result.path(), include));
+                    continue;
+                }
+                Integer targetId = graph.ids.get(target);
+                if (targetId == null) {
+                    targetId = graph.node(target, external.apply(target));
+                }
+                targets.add(targetId);
+                graph.resolvedEdges++;
+            }
+            graph.edges.add(targets.stream().mapToInt(Integer::intValue).distinct().toArray());
+        }
+        return graph;
+    }
+
+    private int node(Path path, FileResult result) {
+        int id = paths.size();
+        paths.add(path);
+        results.add(result);
+        ids.put(path, id);
+        return id;
+    }
+
+    public int size() {
+        return paths.size();
+    }
+
+    public int analyzedCount() {
+        return analyzedCount;
+    }
+
+    public int resolvedEdges() {
+        return resolvedEdges;
+    }
+
+    public FileResult result(int id) {
+        return results.get(id);
+    }
+
+    public boolean isExternal(int id) {
+        return id >= analyzedCount;
+    }
+
+    public List<Unresolved> unresolved() {
+        return unresolved;
+    }
+
+    public boolean isTranslationUnit(int id) {
+        if (isExternal(id)) {
+            return false;
+        }
+        String name = paths.get(id).getFileName().toString();
+        return !(name.endsWith(".h") || name.endsWith(".hh") || name.endsWith(".hpp") || name.endsWith(".hxx"));
+    }
+
+    /** Direct includers of each node. */
+    public int[] directFanIn() {
+        int[] fanIn = new int[size()];
+        for (int[] targets : edges) {
+            for (int target : targets) {
+                fanIn[target]++;
+            }
+        }
+        return fanIn;
+    }
+
+    /** Headers visible from a node: its transitive include closure, excluding the node itself. */
+    public BitSet closure(int id) {
+        BitSet seen = new BitSet(size());
+        Deque<Integer> pending = new ArrayDeque<>();
+        pending.push(id);
+        seen.set(id);
+        while (!pending.isEmpty()) {
+            for (int target : edges.get(pending.pop())) {
+                if (!seen.get(target)) {
+                    seen.set(target);
+                    pending.push(target);
+                }
+            }
+        }
+        seen.clear(id);
+        return seen;
+    }
+}
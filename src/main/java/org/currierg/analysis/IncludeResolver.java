@@ -0,0 +1,46 @@
+package org.currierg.analysis;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves {@code #include} targets to files the way a compiler invoked with {@code -I} options would: a quoted
+ * include is looked up next to the including file first, then both forms are looked up in the configured include
+ * paths in order ({@code include.paths} in config.properties). Lookups are memoized per directory and target, so a
+ * header included from hundreds of files in one directory costs one file-system probe.
+ */
+public class IncludeResolver {
+    private final List<Path> includePaths;
+    private final Map<String, Optional<Path>> resolved = new ConcurrentHashMap<>();
+
+    public IncludeResolver(List<Path> includePaths) {
+        this.includePaths = includePaths.stream().map(p -> p.toAbsolutePath().normalize()).toList();
+    }
+
+    /** The normalized absolute path the include refers to, or null if it is not found (system headers usually). */
+    public Path resolve(Path includer, IncludeDirective include) {
+        Path dir = include.system() ? null : includer.toAbsolutePath().normalize().getParent();
+        String key = (dir == null ? "<>" : dir.toString()) + '\0' + include.target();
+        return resolved.computeIfAbsent(key, k -> Optional.ofNullable(lookup(dir, include.target()))).orElse(null);
+    }
+
+    private Path lookup(Path dir, String target) {
+        if (dir != null) {
+            Path candidate = dir.resolve(target).normalize();
+            if (Files.isRegularFile(candidate)) {
+                return candidate;
+            }
+        }
+        for (Path includePath : includePaths) {
+            Path candidate = includePath.resolve(target).normalize();
+            if (Files.isRegularFile(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+}
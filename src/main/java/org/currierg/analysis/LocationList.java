@@ -0,0 +1,76 @@
+package org.currierg.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of (fileId, line) pairs packed into a {@code long[]}, one element per location. Replaces lists of
+ * {@code "relative/path:line"} Strings; file ids refer to a {@link FileTable} and location Strings are only built
+ * when output is written. Definitions may also carry the character offset of the declaration; the offsets column is
+ * only allocated once one is added.
+ */
+public final class LocationList {
+    private static final long[] EMPTY = new long[0];
+
+    private long[] packed = EMPTY;
+    private int[] offsets;
+    private int size;
+
+    public void add(int fileId, int line) {
+        add(fileId, line, -1);
+    }
+
+    public void add(int fileId, int line, int offset) {
+        if (size == packed.length) {
+            packed = Arrays.copyOf(packed, Math.max(4, size + (size >> 1)));
+        }
+        if (offset >= 0 && offsets == null) {
+            offsets = new int[packed.length];
+            Arrays.fill(offsets, 0, size, -1);
+        }
+        if (offsets != null) {
+            if (offsets.length < packed.length) {
+                offsets = Arrays.copyOf(offsets, packed.length);
+            }
+            offsets[size] = offset;
+        }
+        packed[size++] = ((long) fileId << 32) | (line & 0xFFFFFFFFL);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int fileId(int index) {
+        return (int) (checked(index) >>> 32);
+    }
+
+    public int line(int index) {
+        return (int) checked(index);
+    }
+
+    /** Character offset of the declaration in its decoded source, or -1 if none was recorded. */
+    public int offset(int index) {
+        checked(index);
+        return offsets == null ? -1 : offsets[index];
+    }
+
+    public boolean hasOffsets() {
+        return offsets != null;
+    }
+
+    /** Heap bytes held by the backing arrays, for capacity reporting. */
+    public long retainedBytes() {
+        return 16L + (long) packed.length * Long.BYTES + (offsets == null ? 0 : 16L + (long) offsets.length * Integer.BYTES);
+    }
+
+    private long checked(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of range 0.." + (size - 1));
+        }
+        return packed[index];
+    }
+}
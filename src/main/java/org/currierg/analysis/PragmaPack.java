@@ -0,0 +1,79 @@
+package org.currierg.analysis;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * {@code #pragma pack} state as the compiler tracks it: {@code pack(n)}, {@code pack()}, {@code pack(push[, n])} and
+ * {@code pack(pop)}. A value of 0 means natural alignment.
+ */
+public final class PragmaPack {
+    private final Deque<Integer> stack = new ArrayDeque<>();
+    private int value;
+
+    public int value() {
+        return value;
+    }
+
+    /**
+     * Applies one preprocessor directive (the whole line, starting at '#'). Anything other than a pack pragma is
+     * ignored. Returns true if the directive set an explicit pack value.
+     */
+    public boolean apply(String directive) {
+        int i = skipSpaces(directive, 1);
+        if (!directive.startsWith("pragma", i)) return false;
+        i = skipSpaces(directive, i + "pragma".length());
+        if (!directive.startsWith("pack", i)) return false;
+        int open = directive.indexOf('(', i);
+        int close = directive.indexOf(')', open + 1);
+        if (open < 0 || close < 0) return false;
+
+        String[] args = directive.substring(open + 1, close).split(",");
+        int newValue = 0;
+        boolean hasValue = false;
+        for (String arg : args) {
+            String a = arg.trim();
+            if (a.equals("push")) {
+                stack.push(value);
+            } else if (a.equals("pop")) {
+                value = stack.isEmpty() ? 0 : stack.pop();
+            } else if (!a.isEmpty() && Character.isDigit(a.charAt(0))) {
+                newValue = Integer.parseInt(a);
+                hasValue = true;
+            }
+        }
+        if (hasValue) {
+            value = newValue;
+        } else if (args.length == 1 && args[0].isBlank()) {
+            value = 0;
+        }
+        return hasValue;
+    }
+
+    /**
+     * Pack value in effect after each pack directive of a comment-free source, keyed by the directive's offset. The
+     * value at any offset is that of the floor entry, or 0 before the first directive.
+     */
+    public static NavigableMap<Integer, Integer> scan(CharSequence text) {
+        NavigableMap<Integer, Integer> changes = new TreeMap<>();
+        PragmaPack pack = new PragmaPack();
+        CLexer lexer = new CLexer(text);
+        for (CLexer.Token token = lexer.next(); token != CLexer.Token.EOF; token = lexer.next()) {
+            if (token == CLexer.Token.PREPROCESSOR) {
+                int before = pack.value();
+                pack.apply(lexer.text());
+                if (pack.value() != before) {
+                    changes.put(lexer.start(), pack.value());
+                }
+            }
+        }
+        return changes;
+    }
+
+    private static int skipSpaces(String s, int i) {
+        while (i < s.length() && Character.isWhitespace(s.charAt(i))) i++;
+        return i;
+    }
+}
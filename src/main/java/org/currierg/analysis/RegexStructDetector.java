@@ -0,0 +1,24 @@
+package org.currierg.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+
+import org.currierg.util.PatternsUtil;
+
+public class RegexStructDetector implements StructDetector {
+    @Override
+    public List<StructDeclaration> detect(CharSequence text) {
+        List<StructDeclaration> declarations = new ArrayList<>();
+        // Kind and name come straight from the capture groups, so each match is classified exactly once
+        Matcher matcher = PatternsUtil.BROAD_STRUCT_PATTERN.matcher(text);
+        while (matcher.find()) {
+            StructKind kind = StructKind.of(matcher);
+            String name = kind != null ? kind.nameOf(matcher) : null;
+            String tag = kind == StructKind.TYPEDEF ? matcher.group("typedefTag") : null;
+            int pack = kind == StructKind.PRAGMA ? Integer.parseInt(matcher.group("pragmaPack")) : 0;
+            declarations.add(new StructDeclaration(kind, name, tag, matcher.start(), matcher.end(), pack));
+        }
+        return declarations;
+    }
+}
@@ -0,0 +1,139 @@
+package org.currierg.analysis;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.currierg.util.LogUtil;
+
+/**
+ * Watches one or more source trees and reports changed paths in debounced batches: after the first event, events keep being
+ * collected until the tree has been quiet for the debounce interval, or for at most {@value #MAX_BATCH_INTERVALS} intervals
+ * when it never goes quiet (a build writing generated headers). Directories created later are registered as
+ * they appear, and keys of deleted directories are dropped, so the watcher's own state stays proportional to the
+ * number of live directories.
+ */
+public class SourceWatcher implements Closeable {
+    private static final int MAX_BATCH_INTERVALS = 10;
+
+    public interface Listener {
+        /** Called with every path created, modified or deleted since the last batch. */
+        void filesChanged(Set<Path> paths);
+
+        /** Called when events were lost (overflow) and the whole tree has to be rescanned. */
+        void rescanRequired();
+    }
+
+    private final List<Path> roots;
+    private final long debounceMillis;
+    private final LogUtil log;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> keys = new HashMap<>();
+
+    public SourceWatcher(List<Path> roots, long debounceMillis, LogUtil log) throws IOException {
+        this.roots = roots;
+        this.debounceMillis = debounceMillis;
+        this.log = log;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        for (Path root : roots) {
+            registerAll(root, null);
+        }
+    }
+
+    /** Blocks, delivering batches to the listener until the thread is interrupted or the watcher is closed. */
+    public void run(Listener listener) throws InterruptedException {
+        log.info("Watching " + keys.size() + " directories under " + roots);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                Set<Path> changed = new LinkedHashSet<>();
+                boolean overflow = false;
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(debounceMillis * MAX_BATCH_INTERVALS);
+                while (key != null) {
+                    overflow |= drain(key, changed);
+                    long left = deadline - System.nanoTime();
+                    if (left <= 0) {
+                        // Still churning: deliver what was collected, later events go into the next batch
+                        break;
+                    }
+                    key = watchService.poll(Math.min(TimeUnit.MILLISECONDS.toNanos(debounceMillis), left), TimeUnit.NANOSECONDS);
+                }
+                if (overflow) {
+                    listener.rescanRequired();
+                } else if (!changed.isEmpty()) {
+                    listener.filesChanged(changed);
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            log.info("Watch service closed, stopping");
+        }
+    }
+
+    // Returns true if events were lost
+    private boolean drain(WatchKey key, Set<Path> changed) {
+        Path dir = keys.get(key);
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null) {
+                overflow = true;
+                continue;
+            }
+            Path child = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child)) {
+                // Files may have landed in the new directory before it was registered
+                registerAll(child, changed);
+            } else {
+                changed.add(child);
+            }
+        }
+        if (!key.reset()) {
+            keys.remove(key);
+        }
+        return overflow;
+    }
+
+    private void registerAll(Path start, Set<Path> discovered) {
+        try {
+            Files.walkFileTree(start, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                    keys.put(key, dir);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (discovered != null) {
+                        discovered.add(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.warning("Failed to watch " + start + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
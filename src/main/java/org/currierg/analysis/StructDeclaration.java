@@ -0,0 +1,14 @@
+package org.currierg.analysis;
+
+/**
+ * One struct construct found in a file.
+ *
+ * @param kind  what was found
+ * @param name  the name the struct is recorded under (the alias for typedefs), or null for an unusable match
+ * @param tag   the struct tag of a typedef, if any
+ * @param start offset of the first character of the construct
+ * @param end   offset just past the construct
+ * @param pack  {@code #pragma pack} value in effect, or 0 for natural alignment
+ */
+public record StructDeclaration(StructKind kind, String name, String tag, int start, int end, int pack) {
+}
@@ -0,0 +1,8 @@
+package org.currierg.analysis;
+
+/**
+ * A struct definition, typedef or forward declaration on a 1-based line of the file that produced it. The offset is
+ * the character position of the declaration in the decoded source, so the generator can go straight to the body.
+ */
+public record StructDefinition(String name, StructKind kind, int line, int offset) {
+}
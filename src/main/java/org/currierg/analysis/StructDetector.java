@@ -0,0 +1,11 @@
+package org.currierg.analysis;
+
+import java.util.List;
+
+/**
+ * Finds struct definitions, typedefs and forward declarations in comment-free source text. Implementations are
+ * stateless and safe to share between analysis workers.
+ */
+public interface StructDetector {
+    List<StructDeclaration> detect(CharSequence text);
+}
@@ -0,0 +1,41 @@
+package org.currierg.analysis;
+
+import java.util.regex.Matcher;
+
+/**
+ * The struct constructs recognised by {@link org.currierg.util.PatternsUtil#BROAD_STRUCT_PATTERN}, each tied to the
+ * named groups that capture the whole construct and the struct name, plus those only the lexer engine reports.
+ */
+public enum StructKind {
+    TYPEDEF("typedef", "typedefName"),
+    BASIC("basic", "basicName"),
+    PRAGMA("pragma", "pragmaName"),
+    FORWARD("forward", "forwardName"),
+    // typedef struct tag alias; -- only reported by the lexer engine
+    ALIAS(null, null);
+
+    private final String group;
+    private final String nameGroup;
+
+    StructKind(String group, String nameGroup) {
+        this.group = group;
+        this.nameGroup = nameGroup;
+    }
+
+    /**
+     * Returns the kind of the current match of a {@code BROAD_STRUCT_PATTERN} matcher, or null if no alternative
+     * participated in the match.
+     */
+    public static StructKind of(Matcher matcher) {
+        for (StructKind kind : values()) {
+            if (kind.group != null && matcher.start(kind.group) >= 0) {
+                return kind;
+            }
+        }
+        return null;
+    }
+
+    public String nameOf(Matcher matcher) {
+        return matcher.group(nameGroup);
+    }
+}
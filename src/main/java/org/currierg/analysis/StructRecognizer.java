@@ -0,0 +1,145 @@
+package org.currierg.analysis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+import org.currierg.analysis.CLexer.Token;
+
+/**
+ * Single-pass struct recognizer over {@link CLexer} tokens. Bodies are delimited by real brace matching, so nested
+ * struct/union bodies are handled without truncation, and nothing is ever re-scanned. Reports definitions, typedefs
+ * (with and without a body), forward declarations and the {@code #pragma pack} value in effect for each of them.
+ */
+public class StructRecognizer implements StructDetector {
+    @Override
+    public List<StructDeclaration> detect(CharSequence text) {
+        return new Pass(text).run();
+    }
+
+    private static final class Frame {
+        final String name;
+        final int start;
+        final boolean typedef;
+        final boolean pragma;
+        final int outerDepth;
+        final int pack;
+
+        Frame(String name, int start, boolean typedef, boolean pragma, int outerDepth, int pack) {
+            this.name = name;
+            this.start = start;
+            this.typedef = typedef;
+            this.pragma = pragma;
+            this.outerDepth = outerDepth;
+            this.pack = pack;
+        }
+    }
+
+    private static final class Pass {
+        private final CLexer lexer;
+        private final List<StructDeclaration> declarations = new ArrayList<>();
+        private final Deque<Frame> frames = new ArrayDeque<>();
+        private final PragmaPack pack = new PragmaPack();
+        private int typedefDepth = -1;
+        private int typedefStart;
+        private int pragmaStart = -1;
+
+        Pass(CharSequence text) {
+            this.lexer = new CLexer(text);
+        }
+
+        List<StructDeclaration> run() {
+            Token token = lexer.next();
+            while (token != Token.EOF) {
+                if (token == Token.PREPROCESSOR) {
+                    pragmaStart = pack.apply(lexer.text()) ? lexer.start() : -1;
+                    token = lexer.next();
+                    continue;
+                }
+                if (lexer.is("struct")) {
+                    token = onStruct();
+                    continue;
+                }
+                if (lexer.is('}') && !frames.isEmpty() && frames.peek().outerDepth == lexer.depth()) {
+                    token = onClose();
+                    continue;
+                }
+                if (lexer.is("typedef") && typedefDepth < 0) {
+                    typedefDepth = lexer.depth();
+                    typedefStart = lexer.start();
+                } else if (lexer.is(';') && lexer.depth() == typedefDepth) {
+                    typedefDepth = -1;
+                }
+                pragmaStart = -1;
+                token = lexer.next();
+            }
+            // Emitted when bodies close, so nested structs arrive before their parents
+            declarations.sort(Comparator.comparingInt(StructDeclaration::start));
+            return declarations;
+        }
+
+        // Current token is 'struct'; returns the first token this method did not consume
+        private Token onStruct() {
+            boolean inTypedef = typedefDepth == lexer.depth();
+            boolean pragma = pragmaStart >= 0;
+            int start = inTypedef ? typedefStart : pragma ? pragmaStart : lexer.start();
+            pragmaStart = -1;
+
+            Token token = lexer.next();
+            String name = null;
+            if (token == Token.IDENTIFIER) {
+                name = lexer.text();
+                token = lexer.next();
+            }
+            if (lexer.is('{')) {
+                frames.push(new Frame(name, start, inTypedef, pragma || pack.value() > 0, lexer.depth() - 1, pack.value()));
+                return lexer.next();
+            }
+            if (name == null) {
+                return token;
+            }
+            if (lexer.is(';') && !inTypedef) {
+                declarations.add(new StructDeclaration(StructKind.FORWARD, name, null, start, lexer.end(), pack.value()));
+                return token;
+            }
+            if (inTypedef && token == Token.IDENTIFIER) {
+                // typedef struct tag alias;
+                String alias = lexer.text();
+                declarations.add(new StructDeclaration(StructKind.ALIAS, alias, name, start, lexer.end(), pack.value()));
+                return lexer.next();
+            }
+            return token;
+        }
+
+        // Current token is the '}' closing the innermost open struct body
+        private Token onClose() {
+            Frame frame = frames.pop();
+            int closeEnd = lexer.end();
+            if (!frame.typedef) {
+                if (frame.name != null) {
+                    StructKind kind = frame.pragma ? StructKind.PRAGMA : StructKind.BASIC;
+                    declarations.add(new StructDeclaration(kind, frame.name, null, frame.start, closeEnd, frame.pack));
+                }
+                return lexer.next();
+            }
+            // typedef struct [tag] { ... } [*p,] alias; -- the first non-pointer declarator is the alias
+            boolean pointer = false;
+            Token token = lexer.next();
+            while (token != Token.EOF && !lexer.is(';') && !lexer.is('{') && !lexer.is('}')) {
+                if (lexer.is('*')) {
+                    pointer = true;
+                } else if (lexer.is(',')) {
+                    pointer = false;
+                } else if (token == Token.IDENTIFIER && !pointer) {
+                    declarations.add(new StructDeclaration(StructKind.TYPEDEF, lexer.text(), frame.name,
+                            frame.start, lexer.end(), frame.pack));
+                    return lexer.next();
+                }
+                token = lexer.next();
+            }
+            return token;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package org.currierg.analysis;
+
+/**
+ * A candidate struct usage on a 1-based line of the file that produced it.
+ */
+public record StructUsage(String name, int line) {
+}
@@ -0,0 +1,48 @@
+package org.currierg.analysis;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable set of known struct names, frozen after all definitions have been collected. Lookups return the
+ * canonical (interned) name instance, so resolved usages share one String per struct. Safe for concurrent reads.
+ */
+public final class SymbolTable {
+    private final Map<String, String> canonical;
+
+    private SymbolTable(Map<String, String> canonical) {
+        this.canonical = canonical;
+    }
+
+    public static SymbolTable freeze(Collection<String> names) {
+        Map<String, String> map = new HashMap<>();
+        for (String name : names) {
+            map.putIfAbsent(name, name);
+        }
+        return new SymbolTable(Map.copyOf(map));
+    }
+
+    public int size() {
+        return canonical.size();
+    }
+
+    /** Returns the canonical instance of a known struct name, or null if no such struct was defined. */
+    public String resolve(String name) {
+        return canonical.get(name);
+    }
+
+    /** Keeps the candidate usages that name a known struct, rewritten to use canonical names. */
+    public List<StructUsage> resolve(List<StructUsage> candidates) {
+        List<StructUsage> resolved = new ArrayList<>();
+        for (StructUsage candidate : candidates) {
+            String name = canonical.get(candidate.name());
+            if (name != null) {
+                resolved.add(new StructUsage(name, candidate.line()));
+            }
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,108 @@
+package org.currierg.analysis;
+
+import org.currierg.analysis.CLexer.Token;
+
+/**
+ * Linear-time stand-in for {@code STRUCT_USAGE_PATTERN}, used for a file once the pattern has run over its match
+ * budget. Works on {@link CLexer} tokens and only keeps the last few, looking for the same two shapes as the pattern:
+ * {@code [struct] Name [*] var [[n]] ;} (or {@code ,}) and {@code [struct] Name var =} followed by an opening
+ * brace. Like the pattern's, the names it reports are candidates that are resolved against the struct table later.
+ */
+public final class UsageScanner {
+    private static final int WINDOW = 8;
+
+    @FunctionalInterface
+    public interface Consumer {
+        /** Receives a candidate struct name and the offset the usage starts at. */
+        void usage(String name, int start);
+    }
+
+    private UsageScanner() {
+    }
+
+    /** Reports the usages found in {@code text} from offset {@code from} on; offsets are into the whole text. */
+    public static void scan(CharSequence text, int from, Consumer consumer) {
+        CharSequence rest = text.subSequence(from, text.length());
+        CLexer lexer = new CLexer(rest);
+        Window window = new Window(rest);
+        for (Token token = lexer.next(); token != Token.EOF; token = lexer.next()) {
+            window.push(token, lexer.start(), lexer.end());
+            if (lexer.is(';') || lexer.is(',')) {
+                declaration(window, from, consumer);
+            } else if (lexer.is('{')) {
+                initializer(window, from, consumer);
+            }
+        }
+    }
+
+    // Name [*] var [[n]] ; with the terminator at back 0
+    private static void declaration(Window window, int from, Consumer consumer) {
+        int back = 1;
+        if (window.is(back, ']')) {
+            back++;
+            if (window.token(back) == Token.NUMBER) back++;
+            if (!window.is(back, '[')) return;
+            back++;
+        }
+        if (window.token(back) != Token.IDENTIFIER) return;
+        back++;
+        if (window.is(back, '*')) back++;
+        report(window, back, from, consumer);
+    }
+
+    // Name var = { with the brace at back 0
+    private static void initializer(Window window, int from, Consumer consumer) {
+        if (window.is(1, '=') && window.token(2) == Token.IDENTIFIER) {
+            report(window, 3, from, consumer);
+        }
+    }
+
+    private static void report(Window window, int back, int from, Consumer consumer) {
+        if (window.token(back) != Token.IDENTIFIER) return;
+        int start = window.start(back);
+        if (window.token(back + 1) == Token.IDENTIFIER && window.text(back + 1).equals("struct")) {
+            start = window.start(back + 1);
+        }
+        consumer.usage(window.text(back), from + start);
+    }
+
+    // The last WINDOW tokens; back 0 is the current one
+    private static final class Window {
+        private final CharSequence text;
+        private final Token[] tokens = new Token[WINDOW];
+        private final int[] starts = new int[WINDOW];
+        private final int[] ends = new int[WINDOW];
+        private int count;
+
+        Window(CharSequence text) {
+            this.text = text;
+        }
+
+        void push(Token token, int start, int end) {
+            int slot = count++ % WINDOW;
+            tokens[slot] = token;
+            starts[slot] = start;
+            ends[slot] = end;
+        }
+
+        Token token(int back) {
+            return back < count && back < WINDOW ? tokens[slot(back)] : null;
+        }
+
+        boolean is(int back, char punct) {
+            return token(back) == Token.PUNCT && text.charAt(starts[slot(back)]) == punct;
+        }
+
+        int start(int back) {
+            return starts[slot(back)];
+        }
+
+        String text(int back) {
+            return text.subSequence(starts[slot(back)], ends[slot(back)]).toString();
+        }
+
+        private int slot(int back) {
+            return (count - 1 - back) % WINDOW;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package org.currierg.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+import org.currierg.util.LogUtil;
+
+/**
+ * Candidate usages of a bounded-memory analysis ({@code analysis.bounded}), kept on disk instead of the heap. Usages
+ * are buffered until their estimated size reaches the budget, then written out as an unsorted chunk. Chunks cannot
+ * be sorted while parsing, because the final file order (sorted by path) is only known once the walk is done; so
+ * {@link #finish} reads them back one at a time, drops the usages that name no struct, sorts each into a run by
+ * struct name, file and line, and {@link #merge} k-way merges the runs. Every step holds at most one chunk in memory,
+ * so the heap stays around the budget no matter how many usages the tree has. {@link #add} is safe to call from
+ * several threads.
+ */
+public final class UsageSpill implements Closeable {
+    private static final int MAX_FAN_IN = 128;
+    private static final Comparator<Usage> ORDER = Comparator.comparing(Usage::name)
+            .thenComparingInt(Usage::fileId).thenComparingInt(Usage::line);
+
+    private final Path dir;
+    private final long budgetBytes;
+    private final LogUtil log;
+    private final FileTable arrival = new FileTable();
+    private final List<Path> chunks = new ArrayList<>();
+    private List<Usage> buffer = new ArrayList<>();
+    private long bufferedBytes;
+    private long spilled;
+    private List<Path> runs;
+    private int nextFile;
+
+    private record Usage(String name, int fileId, int line) {
+    }
+
+    /** Receives the usages of one struct from {@link Merge#forEach}. */
+    @FunctionalInterface
+    public interface LocationConsumer {
+        void accept(int fileId, int line) throws IOException;
+    }
+
+    private UsageSpill(Path dir, long budgetBytes, LogUtil log) {
+        this.dir = dir;
+        this.budgetBytes = budgetBytes;
+        this.log = log;
+    }
+
+    /** Creates the spill directory, replacing one left behind by an earlier run. */
+    public static UsageSpill create(Path dir, long budgetBytes, LogUtil log) throws IOException {
+        deleteDirectory(dir);
+        Files.createDirectories(dir);
+        return new UsageSpill(dir, budgetBytes, log);
+    }
+
+    /** Buffers the candidate usages of one file, writing a chunk once the budget is exceeded. */
+    public synchronized void add(String path, List<StructUsage> usages) throws IOException {
+        if (usages.isEmpty()) {
+            return;
+        }
+        int fileId = arrival.intern(path);
+        for (StructUsage usage : usages) {
+            buffer.add(new Usage(usage.name(), fileId, usage.line()));
+            bufferedBytes += estimate(usage.name());
+        }
+        if (bufferedBytes >= budgetBytes) {
+            Path chunk = nextFile("chunk");
+            write(chunk, buffer);
+            chunks.add(chunk);
+            spilled += buffer.size();
+            buffer = new ArrayList<>();
+            bufferedBytes = 0;
+        }
+    }
+
+    // Record, list slot and a String of its own: names come from Matcher.group, so they are not shared
+    private static long estimate(String name) {
+        return 72 + 2L * name.length();
+    }
+
+    /**
+     * Sorts the usages into runs once parsing is done. Usages of names the symbol table does not know are dropped
+     * and file ids are renumbered to the ids of {@code files}. Returns the number of resolved usages per struct.
+     */
+    public synchronized Map<String, Integer> finish(FileTable files, SymbolTable symbols) throws IOException {
+        int[] fileIds = new int[arrival.size()];
+        for (int id = 0; id < fileIds.length; id++) {
+            fileIds[id] = files.intern(arrival.path(id));
+        }
+        Map<String, Integer> counts = new HashMap<>();
+        int chunkCount = chunks.size();
+        runs = new ArrayList<>();
+        for (Path chunk : chunks) {
+            List<Usage> usages = read(chunk);
+            Files.delete(chunk);
+            addRun(usages, fileIds, symbols, counts);
+        }
+        addRun(buffer, fileIds, symbols, counts);
+        buffer = new ArrayList<>();
+        chunks.clear();
+        while (runs.size() > MAX_FAN_IN) {
+            List<Path> group = new ArrayList<>(runs.subList(0, MAX_FAN_IN));
+            runs.subList(0, MAX_FAN_IN).clear();
+            runs.add(mergeRuns(group));
+        }
+        log.info("Usage spill: " + spilled + " candidate usages spilled in " + chunkCount + " chunks, merging "
+                + runs.size() + " sorted runs");
+        return counts;
+    }
+
+    public long spilled() {
+        return spilled;
+    }
+
+    private void addRun(List<Usage> usages, int[] fileIds, SymbolTable symbols, Map<String, Integer> counts) throws IOException {
+        List<Usage> resolved = new ArrayList<>(usages.size());
+        for (Usage usage : usages) {
+            String name = symbols.resolve(usage.name());
+            if (name != null) {
+                resolved.add(new Usage(name, fileIds[usage.fileId()], usage.line()));
+                counts.merge(name, 1, Integer::sum);
+            }
+        }
+        if (resolved.isEmpty()) {
+            return;
+        }
+        resolved.sort(ORDER);
+        Path run = nextFile("run");
+        write(run, resolved);
+        runs.add(run);
+    }
+
+    // Merges a group of runs into one when there are too many to keep open at once
+    private Path mergeRuns(List<Path> group) throws IOException {
+        Path merged = nextFile("run");
+        try (Merge merge = new Merge(group);
+             DataOutputStream out = output(merged)) {
+            out.writeInt(merge.remaining);
+            for (RunReader head = merge.poll(); head != null; head = merge.poll()) {
+                writeUsage(out, head.name, head.fileId, head.line);
+                merge.advance(head);
+            }
+        }
+        for (Path run : group) {
+            Files.delete(run);
+        }
+        return merged;
+    }
+
+    /** Opens a merge over all runs; structs must then be requested in name order. Requires {@link #finish}. */
+    public synchronized Merge merge() throws IOException {
+        if (runs == null) {
+            throw new IllegalStateException("Usage spill is not finished");
+        }
+        return new Merge(runs);
+    }
+
+    private Path nextFile(String kind) {
+        return dir.resolve(kind + "-" + nextFile++ + ".bin");
+    }
+
+    private static DataOutputStream output(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024));
+    }
+
+    private static void write(Path file, List<Usage> usages) throws IOException {
+        try (DataOutputStream out = output(file)) {
+            out.writeInt(usages.size());
+            for (Usage usage : usages) {
+                writeUsage(out, usage.name(), usage.fileId(), usage.line());
+            }
+        }
+    }
+
+    private static void writeUsage(DataOutputStream out, String name, int fileId, int line) throws IOException {
+        out.writeUTF(name);
+        out.writeInt(fileId);
+        out.writeInt(line);
+    }
+
+    private static List<Usage> read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            int size = in.readInt();
+            List<Usage> usages = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                usages.add(new Usage(in.readUTF(), in.readInt(), in.readInt()));
+            }
+            return usages;
+        }
+    }
+
+    /** Deletes the spill directory and everything left in it. */
+    @Override
+    public synchronized void close() throws IOException {
+        buffer = new ArrayList<>();
+        deleteDirectory(dir);
+    }
+
+    private static void deleteDirectory(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * K-way merge over the sorted runs, reading one record ahead per run. Struct names shared by several runs come
+     * out in file and line order, the same order the in-memory analysis produces.
+     */
+    public static final class Merge implements Closeable {
+        private final PriorityQueue<RunReader> heads = new PriorityQueue<>(
+                Comparator.comparing((RunReader r) -> r.name).thenComparingInt(r -> r.fileId).thenComparingInt(r -> r.line));
+        private final List<RunReader> readers = new ArrayList<>();
+        private int remaining;
+
+        private Merge(List<Path> runs) throws IOException {
+            try {
+                for (Path run : runs) {
+                    RunReader reader = new RunReader(run);
+                    readers.add(reader);
+                    remaining += reader.remaining;
+                    if (reader.next()) {
+                        heads.add(reader);
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /** Passes each usage of the struct to the consumer, skipping usages of any names before it. */
+        public void forEach(String name, LocationConsumer consumer) throws IOException {
+            for (RunReader head = heads.peek(); head != null; head = heads.peek()) {
+                int order = head.name.compareTo(name);
+                if (order > 0) {
+                    return;
+                }
+                heads.poll();
+                if (order == 0) {
+                    consumer.accept(head.fileId, head.line);
+                }
+                advance(head);
+            }
+        }
+
+        private RunReader poll() {
+            return heads.poll();
+        }
+
+        private void advance(RunReader reader) throws IOException {
+            if (reader.next()) {
+                heads.add(reader);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException failure = null;
+            for (RunReader reader : readers) {
+                try {
+                    reader.in.close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private static final class RunReader {
+        final DataInputStream in;
+        final int remaining;
+        int left;
+        String name;
+        int fileId;
+        int line;
+
+        RunReader(Path run) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 16 * 1024));
+            this.remaining = in.readInt();
+            this.left = remaining;
+        }
+
+        boolean next() throws IOException {
+            if (left == 0) {
+                return false;
+            }
+            left--;
+            name = in.readUTF();
+            fileId = in.readInt();
+            line = in.readInt();
+            return true;
+        }
+    }
+}
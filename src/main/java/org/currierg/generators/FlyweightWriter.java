@@ -0,0 +1,157 @@
+package org.currierg.generators;
+
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Set;
+
+import org.currierg.layout.Abi;
+import org.currierg.layout.FieldLayout;
+import org.currierg.layout.StructLayout;
+
+/**
+ * Emits flyweight classes over computed struct layouts. A flyweight wraps a {@link java.nio.ByteBuffer} and an offset
+ * and reads or writes each field with absolute get/put at its C offset, so decoding allocates nothing per field.
+ * Unsigned fields widen to the next larger Java type, pointers read as raw addresses, and structs embedded by value
+ * are reached by re-wrapping a caller-supplied flyweight. Fields with no Java primitive equivalent
+ * ({@code long double}) only get their offset constant.
+ */
+final class FlyweightWriter {
+
+    private record Accessor(String javaType, String get, String put, String narrow) {
+    }
+
+    private FlyweightWriter() {
+    }
+
+    /** Throws IllegalArgumentException unless every layout passes {@link #requireComplete}. */
+    static void write(PrintWriter out, List<StructLayout> layouts, Set<String> generated) {
+        layouts.forEach(FlyweightWriter::requireComplete);
+        out.println("import java.nio.ByteBuffer;");
+        out.println("import java.util.Objects;");
+        out.println();
+        for (StructLayout layout : layouts) {
+            writeClass(out, layout, generated);
+            out.println();
+        }
+    }
+
+    /**
+     * Refuses a layout a flyweight would misread: one with no fields (what an unsupported body lays out to) or whose
+     * fields do not follow each other inside the struct size. Offsets are only trustworthy when every member was
+     * parsed, see {@link org.currierg.layout.StructBody#complete()}.
+     */
+    static void requireComplete(StructLayout layout) {
+        if (layout.fields().isEmpty()) {
+            throw new IllegalArgumentException("Struct " + layout.name() + " has no parsed fields");
+        }
+        int end = 0;
+        for (FieldLayout field : layout.fields()) {
+            if (field.offset() < end || field.offset() + field.size() > layout.size()) {
+                throw new IllegalArgumentException("Struct " + layout.name() + " has an incomplete layout at field "
+                        + field.field().name());
+            }
+            end = field.offset() + field.size();
+        }
+    }
+
+    private static void writeClass(PrintWriter out, StructLayout layout, Set<String> generated) {
+        String className = layout.name();
+        out.println("/**");
+        out.println(" * Flyweight over C struct " + className + " (" + layout.abi()
+                + (layout.pack() > 0 ? ", pack " + layout.pack() : "") + "): " + layout.size() + " bytes, alignment "
+                + layout.align() + ". Byte order is the wrapped buffer's.");
+        out.println(" */");
+        out.println("public final class " + className + " {");
+        out.println("    public static final int SIZE = " + layout.size() + ";");
+        out.println("    public static final int ALIGNMENT = " + layout.align() + ";");
+        for (FieldLayout field : layout.fields()) {
+            out.println("    public static final int " + constant(field) + "_OFFSET = " + field.offset() + ";");
+            if (field.field().arrayLength() > 0) {
+                out.println("    public static final int " + constant(field) + "_LENGTH = " + field.field().arrayLength() + ";");
+            }
+        }
+        out.println();
+        out.println("    private ByteBuffer buffer;");
+        out.println("    private int base;");
+        out.println();
+        out.println("    public " + className + " wrap(ByteBuffer buffer, int offset) {");
+        out.println("        this.buffer = buffer;");
+        out.println("        this.base = offset;");
+        out.println("        return this;");
+        out.println("    }");
+        out.println();
+        out.println("    public ByteBuffer buffer() { return buffer; }");
+        out.println("    public int offset() { return base; }");
+        for (FieldLayout field : layout.fields()) {
+            writeAccessors(out, className, field, layout.abi(), generated);
+        }
+        out.println("}");
+    }
+
+    private static void writeAccessors(PrintWriter out, String className, FieldLayout field, Abi abi, Set<String> generated) {
+        String cap = field.field().name().substring(0, 1).toUpperCase() + field.field().name().substring(1);
+        boolean indexed = field.field().array();
+        String position = "base + " + constant(field) + "_OFFSET"
+                + (!indexed ? "" : " + " + (field.field().arrayLength() > 0
+                ? "Objects.checkIndex(index, " + constant(field) + "_LENGTH)" : "index") + " * " + field.elementSize());
+        String indexParam = indexed ? "int index" : "";
+        String indexComma = indexed ? "int index, " : "";
+
+        if (!field.field().pointer() && (field.field().struct() || abi.sizeOf(field.field().type()) < 0)) {
+            // Embedded struct: no allocation, the caller passes the flyweight to re-wrap
+            if (generated.contains(field.field().type())) {
+                String type = field.field().type();
+                out.println("    public " + type + " get" + cap + "(" + indexComma + type + " view) { return view.wrap(buffer, " + position + "); }");
+            }
+            return;
+        }
+        Accessor accessor = accessor(field, abi);
+        if (accessor == null) {
+            return;
+        }
+        String value = "buffer." + accessor.get + "(" + position + ")";
+        out.println("    public " + accessor.javaType + " get" + cap + "(" + indexParam + ") { return "
+                + widen(accessor, value, field.elementSize()) + "; }");
+        out.println("    public " + className + " set" + cap + "(" + indexComma + accessor.javaType + " value) { buffer."
+                + accessor.put + "(" + position + ", " + accessor.narrow + "value); return this; }");
+    }
+
+    private static Accessor accessor(FieldLayout field, Abi abi) {
+        String type = field.field().type();
+        if (field.field().pointer()) {
+            return abi.pointerSize() == 8
+                    ? new Accessor("long", "getLong", "putLong", "")
+                    : new Accessor("long", "getInt", "putInt", "(int) ");
+        }
+        boolean unsigned = type.startsWith("unsigned") || type.startsWith("uint") || type.equals("size_t")
+                || type.equals("uintptr_t") || type.equals("_Bool") || type.equals("bool");
+        if (type.equals("float")) {
+            return new Accessor("float", "getFloat", "putFloat", "");
+        }
+        if (type.equals("double")) {
+            return new Accessor("double", "getDouble", "putDouble", "");
+        }
+        return switch (field.elementSize()) {
+            case 1 -> unsigned ? new Accessor("int", "get", "put", "(byte) ") : new Accessor("byte", "get", "put", "");
+            case 2 -> unsigned ? new Accessor("int", "getShort", "putShort", "(short) ") : new Accessor("short", "getShort", "putShort", "");
+            case 4 -> unsigned ? new Accessor("long", "getInt", "putInt", "(int) ") : new Accessor("int", "getInt", "putInt", "");
+            case 8 -> new Accessor("long", "getLong", "putLong", "");
+            default -> null;
+        };
+    }
+
+    private static String widen(Accessor accessor, String value, int size) {
+        if (accessor.narrow.isEmpty()) {
+            return value;
+        }
+        return switch (size) {
+            case 1 -> "Byte.toUnsignedInt(" + value + ")";
+            case 2 -> "Short.toUnsignedInt(" + value + ")";
+            default -> "Integer.toUnsignedLong(" + value + ")";
+        };
+    }
+
+    private static String constant(FieldLayout field) {
+        return field.field().name().replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase();
+    }
+}
@@ -0,0 +1,16 @@
+package org.currierg.generators;
+
+/**
+ * What the generator emits per struct ({@code generate.mode} in config.properties): plain POJOs, or flyweight
+ * classes that read and write the C layout directly in a {@link java.nio.ByteBuffer}.
+ */
+public enum GenerateMode {
+    POJO, FLYWEIGHT;
+
+    public static GenerateMode fromConfig(String value) {
+        if (value == null || value.isBlank()) {
+            return POJO;
+        }
+        return valueOf(value.trim().toUpperCase());
+    }
+}
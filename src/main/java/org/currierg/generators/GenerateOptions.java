@@ -0,0 +1,24 @@
+package org.currierg.generators;
+
+import java.util.Properties;
+
+import org.currierg.layout.Abi;
+
+/**
+ * Generator settings read from the {@code generate.*} and {@code layout.abi} keys of config.properties.
+ *
+ * @param threads         worker threads, already resolved (0 in the config means one per processor)
+ * @param sourceCacheSize decoded source files held by the {@link SourceCache}
+ */
+public record GenerateOptions(StructSelection selection, GenerateMode mode, Abi abi, int threads, int sourceCacheSize) {
+
+    public static GenerateOptions fromConfig(Properties config) {
+        int threads = Integer.parseInt(config.getProperty("generate.threads", "0").trim());
+        return new GenerateOptions(
+                StructSelection.fromConfig(config),
+                GenerateMode.fromConfig(config.getProperty("generate.mode")),
+                Abi.fromConfig(config.getProperty("layout.abi")),
+                threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+                Integer.parseInt(config.getProperty("generate.cache.size", "64").trim()));
+    }
+}
@@ -3,35 +3,60 @@ package org.currierg.generators;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.*;
-import java.nio.charset.MalformedInputException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.*;
+import java.util.zip.GZIPInputStream;
 
+import org.currierg.analysis.PragmaPack;
+import org.currierg.index.StructIndexReader;
+import org.currierg.layout.FieldDecl;
+import org.currierg.layout.LayoutCalculator;
+import org.currierg.layout.StructBody;
+import org.currierg.layout.StructLayout;
+import org.currierg.metrics.Metrics;
 import org.currierg.util.LogUtil;
-import org.currierg.util.PatternsUtil;
+import org.currierg.util.SourceText;
 
 public class PojoGenerator extends Generator {
     private Map<String, StructInfo> structs;
-    private final String sourceDir;
+    private final SourceCache sources;
+    private final Map<String, NavigableMap<Integer, Integer>> packs = new ConcurrentHashMap<>();
+    private final StructSelection selection;
+    private final GenerateMode mode;
+    private final LayoutCalculator layouts;
+    private final int threads;
     private final LogUtil log;
+    private final Metrics metrics;
 
-    public PojoGenerator(Path generatedDir, Path structsTablePath, String sourceDir, Logger logger) throws IOException {
+    public PojoGenerator(Path generatedDir, Path structsTablePath, String sourceDir, GenerateOptions options,
+                         Metrics metrics, Logger logger) throws IOException {
         super(generatedDir);
         Files.createDirectories(generatedDir);
-        this.sourceDir = sourceDir;
+        this.sources = new SourceCache(sourceDir, options.sourceCacheSize());
+        this.selection = options.selection();
+        this.mode = options.mode();
+        this.layouts = new LayoutCalculator(options.abi(), this::bodyOf);
+        this.threads = Math.max(1, options.threads());
         this.log = new LogUtil(logger);
-        this.structs = parseStructsTable(structsTablePath);
+        this.metrics = metrics;
+        this.structs = metrics.time("loadTable", () -> parseStructsTable(structsTablePath));
     }
 
     private Map<String, StructInfo> parseStructsTable(Path path) throws IOException {
+        if (StructIndexReader.isIndex(path)) {
+            return parseStructIndex(path);
+        }
         Map<String, StructInfo> map = new HashMap<>();
         ObjectMapper mapper = new ObjectMapper();
-        try (Reader reader = Files.newBufferedReader(path)) {
-            Map<String, List<Map<String, Object>>> data = mapper.readValue(reader,
+        try (InputStream in = path.toString().endsWith(".gz")
+                ? new GZIPInputStream(Files.newInputStream(path), 64 * 1024)
+                : new BufferedInputStream(Files.newInputStream(path), 64 * 1024)) {
+            Map<String, List<Map<String, Object>>> data = mapper.readValue(in,
                     new TypeReference<Map<String, List<Map<String, Object>>>>() {
                     });
             List<Map<String, Object>> definitions = data.get("definitions");
@@ -44,7 +69,13 @@ public class PojoGenerator extends Generator {
                     List<String> defFiles = mapper.convertValue(def.get("definitionFiles"),
                             new TypeReference<List<String>>() {
                             });
-                    map.put(name, new StructInfo(name, count, defFiles));
+                    // Older tables have no offsets; every definition then falls back to its line
+                    List<Integer> offsets = def.containsKey("definitionOffsets")
+                            ? mapper.convertValue(def.get("definitionOffsets"), new TypeReference<List<Integer>>() {
+                            })
+                            : List.of();
+                    map.put(name, new StructInfo(name, count, defFiles,
+                            offsets.stream().mapToInt(Integer::intValue).toArray()));
                 }
                 log.info("Parsed " + map.size() + " structs from " + path + " based on definitions");
             }
@@ -54,213 +85,293 @@ public class PojoGenerator extends Generator {
         return map;
     }
 
-    @Override
-    public void generate() {
-        Map<String, List<StructInfo>> structsByFile = new HashMap<>();
-        for (StructInfo struct : structs.values()) {
-            String firstFilePath = struct.locations.get(0).split(":")[0];
-            structsByFile.computeIfAbsent(firstFilePath, k -> new ArrayList<>()).add(struct);
-        }
-
-        List<StructInfo> allStructs = structs.values().stream()
-                .sorted((a, b) -> Integer.compare(b.count, a.count))
-                .toList();
-        Set<String> processedFiles = new HashSet<>();
-        for (StructInfo struct : allStructs.subList(0, Math.min(5, allStructs.size()))) {
-            String filePath = struct.locations.get(0).split(":")[0];
-            if (!processedFiles.contains(filePath)) {
-                generateClassFile(filePath, structsByFile.get(filePath));
-                processedFiles.add(filePath);
+    private Map<String, StructInfo> parseStructIndex(Path path) {
+        Map<String, StructInfo> map = new HashMap<>();
+        try (StructIndexReader index = StructIndexReader.open(path)) {
+            for (int i = 0; i < index.structCount(); i++) {
+                String name = index.name(i);
+                map.put(name, new StructInfo(name, index.count(i), index.definitions(i), index.definitionOffsets(i)));
+            }
+            if (map.isEmpty()) {
+                log.warning("No definitions found in " + path);
+            } else {
+                log.info("Parsed " + map.size() + " structs from binary index " + path);
             }
+        } catch (IOException e) {
+            log.severe("Failed to read struct index " + path + ": " + e.getMessage());
         }
-        log.info("Generated POJOs for " + processedFiles.size() + " files from top 5 structs by definitions");
+        return map;
     }
 
-    private void generateClassFile(String sourceFile, List<StructInfo> structsInFile) {
-        Map<String, List<StructInfo>> byDefFile = new HashMap<>();
-        for (StructInfo struct : structsInFile) {
-            String defFile = null;
-            String defContent = null;
-            log.log(Level.FINE, "Searching for definition of " + struct.name + " in " + struct.locations);
-            for (String loc : struct.locations) {
-                String[] parts = loc.split(":");
-                if (parts.length < 2) {
-                    log.warning("Invalid location format for " + struct.name + ": " + loc);
-                    continue;
-                }
-                Path fullPath = Paths.get(sourceDir, parts[0]);
-                try {
-                    String content;
-                    try {
-                        content = Files.readString(fullPath, StandardCharsets.UTF_8);
-                    } catch (MalformedInputException e) {
-                        log.log(Level.FINE, "UTF-8 failed for " + fullPath + ", falling back to ISO-8859-1");
-                        content = Files.readString(fullPath, StandardCharsets.ISO_8859_1);
-                    }
-                    for (Pattern pattern : PatternsUtil.STRUCT_PATTERNS) {
-                        Matcher matcher = pattern.matcher(content);
-                        while (matcher.find()) {
-                            String name = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
-                            if (name != null && name.equals(struct.name)) {
-                                if (content.substring(matcher.start(), matcher.end()).contains("{")) {
-                                    defFile = parts[0];
-                                    defContent = content;
-                                    log.log(Level.FINE, "Found definition for " + struct.name + " in " + defFile + " with pattern: " + pattern.pattern());
-                                    break;
-                                }
-                            }
-                        }
-                        if (defFile != null) break;
-                    }
-                    if (defFile != null) break;
-                } catch (IOException e) {
-                    log.warning("Error reading " + fullPath + " for " + struct.name + ": " + e.getMessage());
-                }
+    @Override
+    public void generate() {
+        long started = System.nanoTime();
+        List<StructInfo> selected = metrics.time("select", this::select);
+        metrics.count("structsSelected", selected.size());
+        log.info("Generating " + mode + " classes for " + selected.size() + " of " + structs.size() + " structs (" + selection + ") on " + threads + " threads");
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            // Bodies are located per struct, then grouped by output file so no two workers ever write the same file
+            List<Definition> definitions;
+            Metrics.Timer timer = metrics.start("findDefinitions");
+            try {
+                definitions = pool.submit(() -> selected.parallelStream().map(this::findDefinition).toList()).get();
+            } finally {
+                timer.stop();
             }
-            if (defFile == null) {
-                log.warning("No definition found for " + struct.name + " in any listed files, using first location as fallback: " + struct.locations.get(0));
-                defFile = struct.locations.get(0).split(":")[0];
-                try {
-                    defContent = Files.readString(Paths.get(sourceDir, defFile), StandardCharsets.ISO_8859_1);
-                } catch (IOException e) {
-                    log.warning("Failed to read fallback file " + defFile + " for " + struct.name + ": " + e.getMessage());
+            Map<String, List<Definition>> byOutputFile = new TreeMap<>();
+            for (int i = 0; i < selected.size(); i++) {
+                Definition definition = definitions.get(i);
+                if (definition == null) {
+                    StructInfo struct = selected.get(i);
+                    log.warning("No struct body found for " + struct.name + " in " + struct.locations + " (unmatched braces or forward declarations only)");
+                    metrics.count("definitionsMissing", 1);
                     continue;
                 }
+                String fileName = mode == GenerateMode.FLYWEIGHT ? definition.struct.name + ".java" : outputFileName(definition.file);
+                byOutputFile.computeIfAbsent(fileName, k -> new ArrayList<>()).add(definition);
+            }
+
+            // Flyweights are laid out before anything is written, so a class only gets accessors for the structs it
+            // embeds whose own flyweight is written as well
+            Map<String, StructLayout> flyweights = mode == GenerateMode.FLYWEIGHT
+                    ? metrics.time("layout", () -> layOut(definitions)) : Map.of();
+            int classes;
+            timer = metrics.start("writeFiles");
+            try {
+                classes = pool.submit(() -> byOutputFile.entrySet().parallelStream()
+                        .mapToInt(e -> mode == GenerateMode.FLYWEIGHT
+                                ? generateFlyweightFile(e.getKey(), e.getValue(), flyweights)
+                                : generateClassFile(e.getKey(), e.getValue()))
+                        .sum()).get();
+            } finally {
+                timer.stop();
             }
-            byDefFile.computeIfAbsent(defFile, k -> new ArrayList<>()).add(struct);
+            double seconds = (System.nanoTime() - started) / 1e9;
+            log.info(String.format("Generated %d classes in %d files in %.2f s (%.1f classes/s, %.1f files/s)",
+                    classes, byOutputFile.size(), seconds, classes / seconds, byOutputFile.size() / seconds));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.severe("Generation interrupted");
+        } catch (ExecutionException e) {
+            log.severe("Generation failed: " + e.getCause().getClass().getSimpleName() + " - " + e.getCause().getMessage());
+        } finally {
+            pool.shutdown();
         }
+        log.info(sources.summary());
+    }
 
-        for (Map.Entry<String, List<StructInfo>> entry : byDefFile.entrySet()) {
-            String fileName = entry.getKey().substring(entry.getKey().lastIndexOf('/') + 1)
-                    .replace(".h", ".java").replace(".c", ".java");
-            Path outputPath = outputDir.resolve(fileName);
-            List<StructInfo> structsToGenerate = entry.getValue();
+    private List<StructInfo> select() {
+        return switch (selection.mode()) {
+            case ALL -> structs.values().stream()
+                    .sorted(Comparator.comparing(StructInfo::name))
+                    .toList();
+            case TOP -> structs.values().stream()
+                    .sorted(Comparator.comparingInt(StructInfo::count).reversed().thenComparing(StructInfo::name))
+                    .limit(selection.topN())
+                    .toList();
+            case REGEX -> structs.values().stream()
+                    .filter(s -> selection.namePattern().matcher(s.name).matches())
+                    .sorted(Comparator.comparing(StructInfo::name))
+                    .toList();
+            case FILES -> structs.values().stream()
+                    .filter(s -> s.locations.stream().anyMatch(l -> selection.files().contains(l.substring(0, Math.max(0, l.lastIndexOf(':'))))))
+                    .sorted(Comparator.comparing(StructInfo::name))
+                    .toList();
+        };
+    }
 
-            Map<String, List<Field>> classFields = new HashMap<>();
-            Set<String> imports = new TreeSet<>(Set.of("java.util.List"));
+    private static String outputFileName(String sourceFile) {
+        return sourceFile.substring(sourceFile.lastIndexOf('/') + 1)
+                .replace(".h", ".java").replace(".c", ".java");
+    }
 
-            for (StructInfo struct : structsToGenerate) {
-                try {
-                    String[] loc = struct.locations.stream()
-                            .filter(l -> l.startsWith(entry.getKey() + ":"))
-                            .findFirst().get().split(":");
-                    Path fullPath = Paths.get(sourceDir, loc[0]);
-                    String content;
-                    try {
-                        content = Files.readString(fullPath, StandardCharsets.UTF_8);
-                    } catch (MalformedInputException e) {
-                        log.log(Level.FINE, "UTF-8 failed for " + fullPath + ", falling back to ISO-8859-1");
-                        content = Files.readString(fullPath, StandardCharsets.ISO_8859_1);
-                    }
-                    int lineNum = Integer.parseInt(loc[1]);
-                    String[] lines = content.split("\n");
-                    if (lineNum - 1 >= lines.length || lineNum <= 0) {
-                        log.warning("Line number out of bounds for " + struct.name + ": " + lineNum + " (file has " + lines.length + " lines)");
-                        continue;
-                    }
-                    StringBuilder structBody = new StringBuilder();
-                    int braceCount = 0;
-                    int i = lineNum - 1;
-                    while (i < lines.length) {
-                        String line = lines[i].trim();
-                        if (line.contains("{")) braceCount++;
-                        if (braceCount > 0) structBody.append(line).append("\n");
-                        if (line.contains("}")) {
-                            braceCount--;
-                            if (braceCount == 0) break;
-                        }
-                        if (braceCount < 0) {
-                            log.warning("Unmatched closing brace for " + struct.name + " at " + loc[0] + ":" + (i + 1));
-                            break;
-                        }
-                        i++;
-                    }
-                    if (braceCount != 0) {
-                        log.warning("Unmatched braces for " + struct.name + " at " + loc[0] + ":" + loc[1] + " (braceCount = " + braceCount + ")");
-                        continue;
-                    }
-                    if (structBody.length() == 0) {
-                        log.warning("No struct body found for " + struct.name + " at " + loc[0] + ":" + loc[1]);
-                        continue;
-                    }
-                    List<Field> fields = parseFields(structBody.toString());
-                    if (fields.isEmpty()) {
-                        log.warning("No fields parsed for " + struct.name + " from body: " + structBody);
-                    }
-                    classFields.put(struct.name, fields);
-                    fields.forEach(f -> {
-                        if (f.type.contains("UnsignedInt")) imports.add("org.currierg.pojos.UnsignedInt");
-                        if (f.type.contains("<")) imports.add("java.util.List");
-                    });
-                } catch (Exception e) {
-                    log.warning("Error processing " + struct.name + ": " + e.getClass().getSimpleName() + " - " + e.getMessage());
+    /** Writes one output file and returns the number of classes in it. */
+    private int generateClassFile(String fileName, List<Definition> definitions) {
+        long started = System.nanoTime();
+        Path outputPath = outputDir.resolve(fileName);
+
+        Map<String, List<Field>> classFields = new TreeMap<>();
+        Set<String> imports = new TreeSet<>(Set.of("java.util.List"));
+
+        for (Definition definition : definitions) {
+            String structName = definition.struct.name;
+            try {
+                List<Field> fields = parseFields(definition.body);
+                if (fields.isEmpty()) {
+                    log.warning("No fields parsed for " + structName + " from body: " + definition.body);
                 }
+                classFields.put(structName, fields);
+                fields.forEach(f -> {
+                    if (f.type.contains("UnsignedInt")) imports.add("org.currierg.generators.pojos.UnsignedInt");
+                    if (f.type.contains("<")) imports.add("java.util.List");
+                });
+            } catch (Exception e) {
+                log.warning("Error processing " + structName + ": " + e.getClass().getSimpleName() + " - " + e.getMessage());
             }
+        }
 
-            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(outputPath))) {
-                writer.println();
-                imports.forEach(imp -> writer.println("import " + imp + ";"));
-                writer.println();
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(outputPath))) {
+            writer.println();
+            imports.forEach(imp -> writer.println("import " + imp + ";"));
+            writer.println();
 
-                for (Map.Entry<String, List<Field>> classEntry : classFields.entrySet()) {
-                    String className = classEntry.getKey();
-                    List<Field> fields = classEntry.getValue();
-                    writer.println("public class " + className + " {");
-                    for (Field f : fields) {
-                        writer.println("    private " + f.type + " " + f.name + ";");
-                    }
-                    writer.println("    public " + className + "() {}");
-                    writer.println("    public " + className + "(" + String.join(", ", fields.stream()
-                            .map(f -> f.type + " " + f.name).toList()) + ") {");
-                    for (Field f : fields) {
-                        writer.println("        this." + f.name + " = " + f.name + ";");
-                    }
-                    writer.println("    }");
-                    for (Field f : fields) {
-                        String capName = f.name.substring(0, 1).toUpperCase() + f.name.substring(1);
-                        writer.println("    public " + f.type + " get" + capName + "() { return " + f.name + "; }");
-                        writer.println("    public void set" + capName + "(" + f.type + " " + f.name + ") { this." + f.name + " = " + f.name + "; }");
-                    }
-                    writer.println("}");
-                    writer.println();
+            for (Map.Entry<String, List<Field>> classEntry : classFields.entrySet()) {
+                String className = classEntry.getKey();
+                List<Field> fields = classEntry.getValue();
+                writer.println("public class " + className + " {");
+                for (Field f : fields) {
+                    writer.println("    private " + f.type + " " + f.name + ";");
+                }
+                writer.println("    public " + className + "() {}");
+                writer.println("    public " + className + "(" + String.join(", ", fields.stream()
+                        .map(f -> f.type + " " + f.name).toList()) + ") {");
+                for (Field f : fields) {
+                    writer.println("        this." + f.name + " = " + f.name + ";");
+                }
+                writer.println("    }");
+                for (Field f : fields) {
+                    String capName = f.name.substring(0, 1).toUpperCase() + f.name.substring(1);
+                    writer.println("    public " + f.type + " get" + capName + "() { return " + f.name + "; }");
+                    writer.println("    public void set" + capName + "(" + f.type + " " + f.name + ") { this." + f.name + " = " + f.name + "; }");
                 }
+                writer.println("}");
+                writer.println();
+            }
+        } catch (IOException e) {
+            log.severe("Error writing " + fileName + ": " + e.getMessage());
+            return 0;
+        }
+        long nanos = System.nanoTime() - started;
+        metrics.generated(fileName, classFields.size(), nanos);
+        log.info(String.format("Wrote %s: %d classes in %.1f ms", fileName, classFields.size(), nanos / 1e6));
+        return classFields.size();
+    }
+
+    /** Lays out the flyweight of every found definition by struct name; incomplete layouts are logged and left out. */
+    private Map<String, StructLayout> layOut(List<Definition> definitions) {
+        Map<String, StructLayout> flyweights = new HashMap<>();
+        for (Definition definition : definitions) {
+            if (definition == null) {
+                continue;
+            }
+            StructBody body = StructBody.parse(definition.struct.name, definition.body, definition.pack);
+            if (!body.complete()) {
+                log.warning("Skipping flyweight for " + definition.struct.name + ": " + body.unsupported());
+                metrics.count("flyweightsSkipped", 1);
+                continue;
+            }
+            try {
+                StructLayout layout = layouts.layout(body);
+                FlyweightWriter.requireComplete(layout);
+                flyweights.put(definition.struct.name, layout);
+            } catch (IllegalArgumentException e) {
+                metrics.count("flyweightsSkipped", 1);
+                log.warning("Cannot lay out " + definition.struct.name + ": " + e.getMessage());
+            }
+        }
+        return flyweights;
+    }
+
+    /** Writes the flyweight classes of one output file and returns how many were written. */
+    private int generateFlyweightFile(String fileName, List<Definition> definitions, Map<String, StructLayout> flyweights) {
+        long started = System.nanoTime();
+        List<StructLayout> structLayouts = definitions.stream()
+                .map(definition -> flyweights.get(definition.struct.name)).filter(Objects::nonNull).toList();
+        if (structLayouts.isEmpty()) {
+            return 0;
+        }
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(outputDir.resolve(fileName)))) {
+            FlyweightWriter.write(writer, structLayouts, flyweights.keySet());
+        } catch (IOException e) {
+            log.severe("Error writing " + fileName + ": " + e.getMessage());
+            return 0;
+        }
+        long nanos = System.nanoTime() - started;
+        metrics.generated(fileName, structLayouts.size(), nanos);
+        log.info(String.format("Wrote %s: %d classes in %.1f ms", fileName, structLayouts.size(), nanos / 1e6));
+        return structLayouts.size();
+    }
+
+    // Layout lookup for structs embedded by value, which need not be among the selected ones
+    private StructBody bodyOf(String name) {
+        StructInfo struct = structs.get(name);
+        Definition definition = struct == null ? null : findDefinition(struct);
+        return definition == null ? null : StructBody.parse(name, definition.body, definition.pack);
+    }
+
+    /**
+     * Finds the first recorded location that holds the struct body, starting at the offset the analyzer recorded.
+     * Forward declarations share the struct's locations, so they are skipped by {@link SourceText#bodyAt(int)}
+     * returning null. An offset that is missing or no longer on its recorded line (the file changed since the
+     * analysis) falls back to the start of that line.
+     */
+    private Definition findDefinition(StructInfo struct) {
+        log.log(Level.FINE, () -> "Searching for definition of " + struct.name + " in " + struct.locations);
+        for (int i = 0; i < struct.locations.size(); i++) {
+            String loc = struct.locations.get(i);
+            int colon = loc.lastIndexOf(':');
+            int line;
+            try {
+                line = Integer.parseInt(loc.substring(colon + 1));
+            } catch (NumberFormatException e) {
+                line = -1;
+            }
+            if (colon <= 0 || line < 0) {
+                log.warning("Invalid location format for " + struct.name + ": " + loc);
+                continue;
+            }
+            String file = loc.substring(0, colon);
+            SourceText source;
+            try {
+                source = sources.get(file);
             } catch (IOException e) {
-                log.severe("Error writing " + fileName + ": " + e.getMessage());
+                log.warning("Error reading " + sources.resolve(file) + " for " + struct.name + ": " + e.getMessage());
+                continue;
+            }
+            if (line == 0 || line > source.lines().lineCount()) {
+                log.warning("Line number out of bounds for " + struct.name + ": " + line + " (file has " + source.lines().lineCount() + " lines)");
+                continue;
+            }
+            int offset = struct.offset(i);
+            if (offset < 0 || offset >= source.text().length() || source.lineOf(offset) != line) {
+                if (offset >= 0) {
+                    int stale = offset;
+                    log.log(Level.FINE, () -> "Stale offset " + stale + " for " + struct.name + " at " + loc + ", using line start");
+                }
+                offset = source.lines().startOf(line);
+            }
+            String body = source.bodyAt(offset);
+            if (body != null) {
+                log.log(Level.FINE, () -> "Found definition for " + struct.name + " at " + loc);
+                Map.Entry<Integer, Integer> pack = packs.computeIfAbsent(file, k -> PragmaPack.scan(source.text())).floorEntry(offset);
+                return new Definition(struct, file, body, pack == null ? 0 : pack.getValue());
             }
         }
+        return null;
     }
 
     private List<Field> parseFields(String body) {
         List<Field> fields = new ArrayList<>();
-        Matcher matcher = PatternsUtil.STRUCT_FIELD_PATTERN.matcher(body);
-        while (matcher.find()) {
-            String structKeyword = matcher.group(1);
-            String type = matcher.group(2);
-            String pointer = matcher.group(3);
-            String name = matcher.group(4);
-            String bitWidth = matcher.group(5);
-            String arraySize = matcher.group(6);
-
-            String javaType = mapType(type, pointer, bitWidth != null ? bitWidth : arraySize);
-            fields.add(new Field(name, javaType));
+        for (FieldDecl field : FieldDecl.parse(body)) {
+            fields.add(new Field(field.name(), mapType(field)));
         }
         return fields;
     }
 
-    private String mapType(String cType, String pointer, String sizeOrBitWidth) {
-        if (!pointer.isEmpty()) {
+    private String mapType(FieldDecl field) {
+        String cType = field.type();
+        if (field.pointer()) {
             return structs.containsKey(cType) ? cType : "Object";
         }
-        if (sizeOrBitWidth != null) {
+        if (field.array()) {
             String baseType = switch (cType) {
                 case "int" -> "Integer";
                 case "unsigned int" -> "UnsignedInt";
                 case "char" -> "String";
                 default -> structs.containsKey(cType) ? cType : "Object";
             };
-            if (PatternsUtil.STRUCT_FIELD_PATTERN.matcher(cType + " x : " + sizeOrBitWidth + ";").matches()) {
-                return baseType;
-            }
             return "List<" + baseType + ">";
         }
         return switch (cType) {
@@ -271,7 +382,13 @@ public class PojoGenerator extends Generator {
         };
     }
 
-    private record StructInfo(String name, int count, List<String> locations) {
+    private record StructInfo(String name, int count, List<String> locations, int[] offsets) {
+        int offset(int index) {
+            return index < offsets.length ? offsets[index] : -1;
+        }
+    }
+
+    private record Definition(StructInfo struct, String file, String body, int pack) {
     }
 
     private record Field(String name, String type) {
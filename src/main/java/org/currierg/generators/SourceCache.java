@@ -0,0 +1,57 @@
+package org.currierg.generators;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.currierg.util.SourceReader;
+import org.currierg.util.SourceText;
+
+/**
+ * Bounded LRU of decoded, comment-blanked sources keyed by path relative to the source directory. Structs defined
+ * in the same header share one decode and one line index instead of re-reading the file for every struct.
+ * Thread-safe; a file is read outside the lock, so two threads missing on the same path may both decode it.
+ */
+public class SourceCache {
+    private final String sourceDir;
+    private final Map<String, SourceText> entries;
+    private long hits;
+    private long misses;
+
+    public SourceCache(String sourceDir, int maxEntries) {
+        this.sourceDir = sourceDir;
+        int capacity = Math.max(1, maxEntries);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SourceText> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public SourceText get(String relativePath) throws IOException {
+        synchronized (this) {
+            SourceText cached = entries.get(relativePath);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+        SourceText loaded = SourceText.wrap(SourceReader.read(resolve(relativePath)));
+        synchronized (this) {
+            entries.put(relativePath, loaded);
+        }
+        return loaded;
+    }
+
+    public Path resolve(String relativePath) {
+        return Paths.get(sourceDir, relativePath);
+    }
+
+    public synchronized String summary() {
+        return "Source cache: " + hits + " hits, " + misses + " misses, " + entries.size() + " files held";
+    }
+}
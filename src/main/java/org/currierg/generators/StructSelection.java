@@ -0,0 +1,47 @@
+package org.currierg.generators;
+
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Which structs the generator emits ({@code generate.selection} in config.properties): every struct, the top N by
+ * reference count ({@code generate.top.n}), names matching {@code generate.name.regex}, or structs defined in one
+ * of the comma-separated relative paths in {@code generate.files}.
+ */
+public record StructSelection(Mode mode, int topN, Pattern namePattern, Set<String> files) {
+
+    public enum Mode {
+        ALL, TOP, REGEX, FILES
+    }
+
+    public static StructSelection fromConfig(Properties config) {
+        String value = config.getProperty("generate.selection", "all").trim();
+        Mode mode = value.isEmpty() ? Mode.ALL : Mode.valueOf(value.toUpperCase());
+        int topN = Integer.parseInt(config.getProperty("generate.top.n", "5").trim());
+        String regex = config.getProperty("generate.name.regex", "").trim();
+        Set<String> files = Arrays.stream(config.getProperty("generate.files", "").split(","))
+                .map(f -> f.trim().replace('\\', '/'))
+                .filter(f -> !f.isEmpty())
+                .collect(Collectors.toSet());
+        if (mode == Mode.REGEX && regex.isEmpty()) {
+            throw new IllegalArgumentException("generate.selection=regex requires generate.name.regex");
+        }
+        if (mode == Mode.FILES && files.isEmpty()) {
+            throw new IllegalArgumentException("generate.selection=files requires generate.files");
+        }
+        return new StructSelection(mode, topN, regex.isEmpty() ? null : Pattern.compile(regex), files);
+    }
+
+    @Override
+    public String toString() {
+        return switch (mode) {
+            case ALL -> "all structs";
+            case TOP -> "top " + topN + " structs by references";
+            case REGEX -> "structs matching " + namePattern.pattern();
+            case FILES -> "structs defined in " + files;
+        };
+    }
+}
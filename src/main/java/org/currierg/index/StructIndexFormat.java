@@ -0,0 +1,27 @@
+package org.currierg.index;
+
+/**
+ * Layout of the binary struct index (all integers big-endian):
+ * <pre>
+ * header      magic "SAIX", version, stringCount, fileCount, structCount, locationCount, definitionCount,
+ *             then the byte offsets of the six sections below as longs
+ * strings     int[stringCount + 1] start offsets into the string data, followed by the UTF-8 string data
+ * files       int[fileCount] string id of each relative file path
+ * structs     structCount records sorted by name: nameId, firstDefinition, definitionCount, firstUsage, usageCount,
+ *             firstOffset
+ * locations   locationCount records: fileIndex, line
+ * offsets     int[definitionCount] character offset of each definition in its decoded source, -1 if unknown
+ * </pre>
+ * Definition and usage ranges index into the location records; firstOffset indexes into the offsets section, which
+ * holds one entry per definition in struct order.
+ */
+final class StructIndexFormat {
+    static final int MAGIC = 0x53414958; // "SAIX"
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 7 * Integer.BYTES + 6 * Long.BYTES;
+    static final int STRUCT_RECORD_BYTES = 6 * Integer.BYTES;
+    static final int LOCATION_RECORD_BYTES = 2 * Integer.BYTES;
+
+    private StructIndexFormat() {
+    }
+}
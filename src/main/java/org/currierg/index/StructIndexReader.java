@@ -0,0 +1,174 @@
+package org.currierg.index;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Memory-mapped reader for the binary struct index. Nothing is decoded up front: a lookup binary-searches the
+ * name-sorted struct records and decodes only the strings and locations it touches. Safe for concurrent readers.
+ */
+public class StructIndexReader implements Closeable {
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final int stringCount;
+    private final int fileCount;
+    private final int structCount;
+    private final int locationCount;
+    private final int stringsOffset;
+    private final int stringDataOffset;
+    private final int filesOffset;
+    private final int structsOffset;
+    private final int locationsOffset;
+    private final int offsetsOffset;
+
+    private StructIndexReader(FileChannel channel, ByteBuffer buffer) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        if (buffer.capacity() < StructIndexFormat.HEADER_BYTES || buffer.getInt(0) != StructIndexFormat.MAGIC) {
+            throw new IOException("Not a struct index file");
+        }
+        int version = buffer.getInt(4);
+        if (version != StructIndexFormat.VERSION) {
+            throw new IOException("Unsupported struct index version " + version + ", expected " + StructIndexFormat.VERSION);
+        }
+        this.stringCount = buffer.getInt(8);
+        this.fileCount = buffer.getInt(12);
+        this.structCount = buffer.getInt(16);
+        this.locationCount = buffer.getInt(20);
+        this.stringsOffset = (int) buffer.getLong(28);
+        this.stringDataOffset = (int) buffer.getLong(36);
+        this.filesOffset = (int) buffer.getLong(44);
+        this.structsOffset = (int) buffer.getLong(52);
+        this.locationsOffset = (int) buffer.getLong(60);
+        this.offsetsOffset = (int) buffer.getLong(68);
+    }
+
+    public static StructIndexReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new StructIndexReader(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** True if the file starts with the struct index magic number. */
+    public static boolean isIndex(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] magic = in.readNBytes(4);
+            return magic.length == 4 && ByteBuffer.wrap(magic).getInt() == StructIndexFormat.MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public int structCount() {
+        return structCount;
+    }
+
+    public int fileCount() {
+        return fileCount;
+    }
+
+    public int locationCount() {
+        return locationCount;
+    }
+
+    public String name(int struct) {
+        return string(structField(struct, 0));
+    }
+
+    public int definitionCount(int struct) {
+        return structField(struct, 2);
+    }
+
+    public int usageCount(int struct) {
+        return structField(struct, 4);
+    }
+
+    public int count(int struct) {
+        return definitionCount(struct) + usageCount(struct);
+    }
+
+    public List<String> definitions(int struct) {
+        return locations(structField(struct, 1), structField(struct, 2));
+    }
+
+    /** Character offsets of the struct's definitions, parallel to {@link #definitions(int)}; -1 where unknown. */
+    public int[] definitionOffsets(int struct) {
+        int first = structField(struct, 5);
+        int[] offsets = new int[structField(struct, 2)];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = buffer.getInt(offsetsOffset + (first + i) * Integer.BYTES);
+        }
+        return offsets;
+    }
+
+    public List<String> usages(int struct) {
+        return locations(structField(struct, 3), structField(struct, 4));
+    }
+
+    /** Position of the struct with this name, or -1 if it is not in the index. */
+    public int find(String name) {
+        int low = 0;
+        int high = structCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = name(mid).compareTo(name);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    public String file(int fileIndex) {
+        return string(buffer.getInt(filesOffset + fileIndex * Integer.BYTES));
+    }
+
+    private int structField(int struct, int field) {
+        if (struct < 0 || struct >= structCount) {
+            throw new IndexOutOfBoundsException("Struct " + struct + " out of range 0.." + (structCount - 1));
+        }
+        return buffer.getInt(structsOffset + struct * StructIndexFormat.STRUCT_RECORD_BYTES + field * Integer.BYTES);
+    }
+
+    private List<String> locations(int first, int count) {
+        List<String> locations = new ArrayList<>(count);
+        for (int i = first; i < first + count; i++) {
+            int record = locationsOffset + i * StructIndexFormat.LOCATION_RECORD_BYTES;
+            locations.add(file(buffer.getInt(record)) + ":" + buffer.getInt(record + Integer.BYTES));
+        }
+        return locations;
+    }
+
+    private String string(int id) {
+        if (id < 0 || id >= stringCount) {
+            throw new IndexOutOfBoundsException("String " + id + " out of range 0.." + (stringCount - 1));
+        }
+        int start = buffer.getInt(stringsOffset + id * Integer.BYTES);
+        int end = buffer.getInt(stringsOffset + (id + 1) * Integer.BYTES);
+        byte[] bytes = new byte[end - start];
+        buffer.get(stringDataOffset + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,144 @@
+package org.currierg.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.currierg.analysis.FileTable;
+import org.currierg.analysis.LocationList;
+
+/**
+ * Builds a binary struct index (see {@link StructIndexFormat}). Structs must be added in name order. The index file
+ * table is the analysis {@link FileTable}, so location records copy file ids straight from the location lists.
+ */
+public class StructIndexWriter {
+    private final List<byte[]> strings = new ArrayList<>();
+    private final List<Integer> files = new ArrayList<>();
+    private int[] structRecords = new int[6 * 64];
+    private int structCount;
+    private int[] locationRecords = new int[2 * 1024];
+    private int locationCount;
+    private int[] definitionOffsets = new int[256];
+    private int definitionCount;
+    private String lastName;
+
+    public StructIndexWriter(FileTable fileTable) {
+        for (int id = 0; id < fileTable.size(); id++) {
+            files.add(addString(fileTable.path(id)));
+        }
+    }
+
+    public void add(String name, LocationList definitions, LocationList usages) {
+        if (lastName != null && lastName.compareTo(name) >= 0) {
+            throw new IllegalArgumentException("Structs must be added in strictly ascending name order: " + name);
+        }
+        lastName = name;
+        int nameId = addString(name);
+        int firstDefinition = locationCount;
+        int firstOffset = definitionCount;
+        addLocations(definitions);
+        addOffsets(definitions);
+        int firstUsage = locationCount;
+        addLocations(usages);
+
+        if ((structCount + 1) * 6 > structRecords.length) {
+            structRecords = Arrays.copyOf(structRecords, structRecords.length * 2);
+        }
+        int i = structCount++ * 6;
+        structRecords[i] = nameId;
+        structRecords[i + 1] = firstDefinition;
+        structRecords[i + 2] = definitions.size();
+        structRecords[i + 3] = firstUsage;
+        structRecords[i + 4] = usages.size();
+        structRecords[i + 5] = firstOffset;
+    }
+
+    private void addOffsets(LocationList definitions) {
+        if (definitionCount + definitions.size() > definitionOffsets.length) {
+            definitionOffsets = Arrays.copyOf(definitionOffsets, Math.max(definitionOffsets.length * 2, definitionCount + definitions.size()));
+        }
+        for (int i = 0; i < definitions.size(); i++) {
+            definitionOffsets[definitionCount++] = definitions.offset(i);
+        }
+    }
+
+    private void addLocations(LocationList locations) {
+        if ((locationCount + locations.size()) * 2 > locationRecords.length) {
+            locationRecords = Arrays.copyOf(locationRecords, Math.max(locationRecords.length * 2, (locationCount + locations.size()) * 2));
+        }
+        for (int i = 0; i < locations.size(); i++) {
+            locationRecords[locationCount * 2] = locations.fileId(i);
+            locationRecords[locationCount * 2 + 1] = locations.line(i);
+            locationCount++;
+        }
+    }
+
+    private int addString(String value) {
+        strings.add(value.getBytes(StandardCharsets.UTF_8));
+        return strings.size() - 1;
+    }
+
+    public void write(Path file) throws IOException {
+        long stringData = 0;
+        for (byte[] s : strings) {
+            stringData += s.length;
+        }
+        long stringsOffset = StructIndexFormat.HEADER_BYTES;
+        long stringDataOffset = stringsOffset + (long) (strings.size() + 1) * Integer.BYTES;
+        long filesOffset = stringDataOffset + stringData;
+        long structsOffset = filesOffset + (long) files.size() * Integer.BYTES;
+        long locationsOffset = structsOffset + (long) structCount * StructIndexFormat.STRUCT_RECORD_BYTES;
+        long offsetsOffset = locationsOffset + (long) locationCount * StructIndexFormat.LOCATION_RECORD_BYTES;
+        long total = offsetsOffset + (long) definitionCount * Integer.BYTES;
+        if (total > Integer.MAX_VALUE || stringData > Integer.MAX_VALUE) {
+            throw new IOException("Struct index would exceed 2 GB (" + total + " bytes)");
+        }
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024))) {
+            out.writeInt(StructIndexFormat.MAGIC);
+            out.writeInt(StructIndexFormat.VERSION);
+            out.writeInt(strings.size());
+            out.writeInt(files.size());
+            out.writeInt(structCount);
+            out.writeInt(locationCount);
+            out.writeInt(definitionCount);
+            out.writeLong(stringsOffset);
+            out.writeLong(stringDataOffset);
+            out.writeLong(filesOffset);
+            out.writeLong(structsOffset);
+            out.writeLong(locationsOffset);
+            out.writeLong(offsetsOffset);
+
+            int offset = 0;
+            for (byte[] s : strings) {
+                out.writeInt(offset);
+                offset += s.length;
+            }
+            out.writeInt(offset);
+            for (byte[] s : strings) {
+                out.write(s);
+            }
+            for (int stringId : files) {
+                out.writeInt(stringId);
+            }
+            for (int i = 0; i < structCount * 6; i++) {
+                out.writeInt(structRecords[i]);
+            }
+            for (int i = 0; i < locationCount * 2; i++) {
+                out.writeInt(locationRecords[i]);
+            }
+            for (int i = 0; i < definitionCount; i++) {
+                out.writeInt(definitionOffsets[i]);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
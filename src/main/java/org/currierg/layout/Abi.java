@@ -0,0 +1,57 @@
+package org.currierg.layout;
+
+/**
+ * Target data models for layout computation ({@code layout.abi} in config.properties). ILP32 follows the i386 System V
+ * ABI, where 8-byte scalars are only 4-byte aligned inside structs.
+ */
+public enum Abi {
+    LP64(8, 8, 16, 16, 8),
+    ILP32(4, 4, 12, 4, 4);
+
+    private final int longSize;
+    private final int pointerSize;
+    private final int longDoubleSize;
+    private final int longDoubleAlign;
+    private final int maxScalarAlign;
+
+    Abi(int longSize, int pointerSize, int longDoubleSize, int longDoubleAlign, int maxScalarAlign) {
+        this.longSize = longSize;
+        this.pointerSize = pointerSize;
+        this.longDoubleSize = longDoubleSize;
+        this.longDoubleAlign = longDoubleAlign;
+        this.maxScalarAlign = maxScalarAlign;
+    }
+
+    public int pointerSize() {
+        return pointerSize;
+    }
+
+    /** Size in bytes of a scalar C type (qualifiers already stripped), or -1 if it is not a known scalar. */
+    public int sizeOf(String type) {
+        return switch (type) {
+            case "char", "signed char", "unsigned char", "_Bool", "bool", "int8_t", "uint8_t" -> 1;
+            case "short", "unsigned short", "int16_t", "uint16_t" -> 2;
+            case "int", "unsigned int", "float", "int32_t", "uint32_t" -> 4;
+            case "long", "unsigned long", "size_t", "ssize_t", "ptrdiff_t", "intptr_t", "uintptr_t" -> longSize;
+            case "long long", "unsigned long long", "double", "int64_t", "uint64_t" -> 8;
+            case "long double" -> longDoubleSize;
+            default -> -1;
+        };
+    }
+
+    /** Natural alignment of a scalar C type inside a struct, or -1 if it is not a known scalar. */
+    public int alignOf(String type) {
+        if (type.equals("long double")) {
+            return longDoubleAlign;
+        }
+        int size = sizeOf(type);
+        return size < 0 ? -1 : Math.min(size, maxScalarAlign);
+    }
+
+    public static Abi fromConfig(String value) {
+        if (value == null || value.isBlank()) {
+            return LP64;
+        }
+        return valueOf(value.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,63 @@
+package org.currierg.layout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+
+import org.currierg.util.PatternsUtil;
+
+/**
+ * One field of a struct body as matched by {@link PatternsUtil#STRUCT_FIELD_PATTERN}. The type is normalized:
+ * {@code const}/{@code volatile} are dropped and spellings such as {@code unsigned}, {@code long int} or
+ * {@code signed short} collapse to the canonical name.
+ *
+ * @param arrayLength -1 for a scalar, 0 for a flexible array member, otherwise the element count
+ */
+public record FieldDecl(String name, String type, boolean struct, boolean pointer, int arrayLength) {
+
+    public boolean array() {
+        return arrayLength >= 0;
+    }
+
+    /** Every field the pattern finds in the body; declarations it cannot read are passed over. */
+    public static List<FieldDecl> parse(CharSequence body) {
+        List<FieldDecl> fields = new ArrayList<>();
+        Matcher matcher = PatternsUtil.STRUCT_FIELD_PATTERN.matcher(body);
+        while (matcher.find()) {
+            fields.add(of(matcher));
+        }
+        return fields;
+    }
+
+    /** Parses one declaration including its {@code ;}, or returns null unless the pattern matches all of it. */
+    public static FieldDecl parseDeclaration(CharSequence declaration) {
+        Matcher matcher = PatternsUtil.STRUCT_FIELD_PATTERN.matcher(declaration);
+        return matcher.matches() ? of(matcher) : null;
+    }
+
+    private static FieldDecl of(Matcher matcher) {
+        String size = matcher.group(5);
+        return new FieldDecl(matcher.group(4), normalize(matcher.group(2)), matcher.group(1) != null,
+                !matcher.group(3).isEmpty(), size == null ? -1 : size.isEmpty() ? 0 : Integer.parseInt(size));
+    }
+
+    static String normalize(String type) {
+        List<String> words = new ArrayList<>(Arrays.asList(type.trim().split("\\s+")));
+        words.removeIf(w -> w.equals("const") || w.equals("volatile"));
+        if (words.size() > 1 && words.get(words.size() - 1).equals("int")
+                && (words.contains("short") || words.contains("long"))) {
+            words.remove(words.size() - 1);
+        }
+        if (words.size() > 1 && words.get(0).equals("signed") && !words.get(1).equals("char")) {
+            words.remove(0);
+        }
+        if (words.equals(List.of("signed"))) {
+            return "int";
+        }
+        if (words.equals(List.of("unsigned"))) {
+            return "unsigned int";
+        }
+        return String.join(" ", words);
+    }
+}
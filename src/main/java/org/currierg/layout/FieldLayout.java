@@ -0,0 +1,8 @@
+package org.currierg.layout;
+
+/**
+ * Placement of one field: byte offset from the start of the struct, total size (all elements for arrays), element
+ * size, effective alignment and the padding bytes inserted before it.
+ */
+public record FieldLayout(FieldDecl field, int offset, int size, int elementSize, int align, int padding) {
+}
@@ -0,0 +1,106 @@
+package org.currierg.layout;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Computes C struct layouts the way the compiler does for the target {@link Abi}: each field is placed at the next
+ * offset aligned to its natural alignment, capped by the {@code #pragma pack} value in effect, and the struct size is
+ * rounded up to its largest field alignment. Structs embedded by value are laid out through the lookup, so their
+ * own pack value applies inside them. Results are memoized by struct name; calls are serialized.
+ */
+public class LayoutCalculator {
+    private final Abi abi;
+    private final Function<String, StructBody> lookup;
+    private final Map<String, StructLayout> layouts = new HashMap<>();
+    private final Set<String> inProgress = new HashSet<>();
+
+    /**
+     * @param lookup finds the body of a struct embedded by value, by the name it is recorded under; returns null if
+     *               the struct is unknown
+     */
+    public LayoutCalculator(Abi abi, Function<String, StructBody> lookup) {
+        this.abi = abi;
+        this.lookup = lookup;
+    }
+
+    public Abi abi() {
+        return abi;
+    }
+
+    /**
+     * Lays out the struct. Throws IllegalArgumentException if the body or a struct it embeds by value is not
+     * {@link StructBody#complete() complete}, a field has an unknown type or a struct contains itself by value.
+     */
+    public synchronized StructLayout layout(StructBody body) {
+        StructLayout cached = layouts.get(body.name());
+        if (cached != null) {
+            return cached;
+        }
+        if (!body.complete()) {
+            throw new IllegalArgumentException("Struct " + body.name() + " has an " + body.unsupported());
+        }
+        if (!inProgress.add(body.name())) {
+            throw new IllegalArgumentException("Struct " + body.name() + " contains itself by value");
+        }
+        try {
+            StructLayout layout = compute(body);
+            layouts.put(body.name(), layout);
+            return layout;
+        } finally {
+            inProgress.remove(body.name());
+        }
+    }
+
+    private StructLayout compute(StructBody body) {
+        List<FieldLayout> fields = new ArrayList<>(body.fields().size());
+        int offset = 0;
+        int structAlign = 1;
+        for (FieldDecl field : body.fields()) {
+            int elementSize;
+            int align;
+            if (field.pointer()) {
+                elementSize = abi.pointerSize();
+                align = abi.pointerSize();
+            } else if (!field.struct() && abi.sizeOf(field.type()) > 0) {
+                elementSize = abi.sizeOf(field.type());
+                align = abi.alignOf(field.type());
+            } else {
+                StructLayout nested = nested(field.type(), body.name());
+                elementSize = nested.size();
+                align = nested.align();
+            }
+            if (body.pack() > 0) {
+                align = Math.min(align, body.pack());
+            }
+            int start = alignUp(offset, align);
+            int size = elementSize * (field.array() ? field.arrayLength() : 1);
+            fields.add(new FieldLayout(field, start, size, elementSize, align, start - offset));
+            offset = start + size;
+            structAlign = Math.max(structAlign, align);
+        }
+        int size = alignUp(offset, structAlign);
+        return new StructLayout(body.name(), abi, size, structAlign, body.pack(), List.copyOf(fields), size - offset);
+    }
+
+    private StructLayout nested(String type, String owner) {
+        StructLayout cached = layouts.get(type);
+        if (cached != null) {
+            return cached;
+        }
+        StructBody body = lookup.apply(type);
+        if (body == null) {
+            throw new IllegalArgumentException("Unknown type '" + type + "' in struct " + owner);
+        }
+        return layout(body);
+    }
+
+    private static int alignUp(int offset, int align) {
+        return (offset + align - 1) / align * align;
+    }
+}
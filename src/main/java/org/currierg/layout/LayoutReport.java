@@ -0,0 +1,92 @@
+package org.currierg.layout;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Struct layout and padding report ({@code layout.report} in config.properties). One CSV row per struct that could be
+ * laid out, with sizeof, alignment, padding, cache lines spanned and the per-field offsets. Rows are ranked by padding
+ * bytes weighted by usage count, so the most-referenced wasteful structs come first.
+ */
+public class LayoutReport {
+    private final LayoutCalculator calculator;
+    private final int cacheLine;
+    private final List<Row> rows = new ArrayList<>();
+    private final List<String> skipped = new ArrayList<>();
+
+    public record Row(StructLayout layout, String location, int usages) {
+        public long weightedPadding() {
+            return (long) layout.paddingBytes() * usages;
+        }
+    }
+
+    public LayoutReport(LayoutCalculator calculator, int cacheLine) {
+        this.calculator = calculator;
+        this.cacheLine = cacheLine;
+    }
+
+    /** Lays out the struct and adds its row; returns false and records the reason if it cannot be laid out. */
+    public boolean add(StructBody body, String location, int usages) {
+        try {
+            rows.add(new Row(calculator.layout(body), location, usages));
+            return true;
+        } catch (IllegalArgumentException e) {
+            skipped.add(body.name() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    public List<String> skipped() {
+        return skipped;
+    }
+
+    public List<Row> ranked() {
+        List<Row> ranked = new ArrayList<>(rows);
+        ranked.sort(Comparator.comparingLong(Row::weightedPadding).reversed()
+                .thenComparing(Comparator.comparingInt((Row r) -> r.layout().paddingBytes()).reversed())
+                .thenComparing(r -> r.layout().name()));
+        return ranked;
+    }
+
+    public void write(Path file) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println("rank,name,location,usages,abi,pack,size,align,padding,tail_padding,padding_pct,weighted_padding,cache_lines,fields");
+            int rank = 0;
+            for (Row row : ranked()) {
+                StructLayout layout = row.layout();
+                double paddingPct = layout.size() == 0 ? 0 : 100.0 * layout.paddingBytes() / layout.size();
+                out.println(++rank + "," + layout.name() + "," + csv(row.location()) + "," + row.usages() + ","
+                        + layout.abi() + "," + layout.pack() + "," + layout.size() + "," + layout.align() + ","
+                        + layout.paddingBytes() + "," + layout.tailPadding() + "," + String.format("%.1f", paddingPct) + ","
+                        + row.weightedPadding() + "," + layout.cacheLines(cacheLine) + "," + csv(describeFields(layout)));
+            }
+        }
+    }
+
+    // e.g. "kind@0+1 [pad 3] len@4+4 vals@8+16"
+    private static String describeFields(StructLayout layout) {
+        StringBuilder fields = new StringBuilder();
+        for (FieldLayout field : layout.fields()) {
+            if (field.padding() > 0) {
+                fields.append("[pad ").append(field.padding()).append("] ");
+            }
+            fields.append(field.field().name()).append('@').append(field.offset()).append('+').append(field.size()).append(' ');
+        }
+        if (layout.tailPadding() > 0) {
+            fields.append("[pad ").append(layout.tailPadding()).append(']');
+        }
+        return fields.toString().trim();
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,53 @@
+package org.currierg.layout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parsed fields of one struct definition and the {@code #pragma pack} value in effect for it (0 for natural
+ * alignment). A body with a member the field pattern cannot read (bitfields, {@code int a, b;}, function pointers,
+ * arrays sized by a macro or with several dimensions, ...) carries the reason in {@code unsupported} instead, so it
+ * is never laid out from a partial field list.
+ *
+ * @param unsupported why the body cannot be laid out, or null if every member was parsed
+ */
+public record StructBody(String name, List<FieldDecl> fields, int pack, String unsupported) {
+
+    public StructBody(String name, List<FieldDecl> fields, int pack) {
+        this(name, fields, pack, null);
+    }
+
+    public boolean complete() {
+        return unsupported == null;
+    }
+
+    /**
+     * Parses a body as returned by {@link org.currierg.util.SourceText#bodyAt(int)}: every top-level {@code ;}
+     * declaration must be a single field. Bodies that declare struct or union bodies inline are unsupported too,
+     * since their members cannot be told apart from the outer fields.
+     */
+    public static StructBody parse(String name, String body, int pack) {
+        if (body.indexOf('{') >= 0) {
+            return unsupported(name, pack, "inline nested struct or union body");
+        }
+        List<FieldDecl> fields = new ArrayList<>();
+        int start = 0;
+        for (int end = body.indexOf(';'); start < body.length(); end = body.indexOf(';', start)) {
+            String declaration = (end < 0 ? body.substring(start) : body.substring(start, end + 1)).trim();
+            start = end < 0 ? body.length() : end + 1;
+            if (declaration.isEmpty() || declaration.equals(";")) {
+                continue;
+            }
+            FieldDecl field = FieldDecl.parseDeclaration(declaration);
+            if (field == null) {
+                return unsupported(name, pack, "unsupported member declaration '" + declaration.replaceAll("\\s+", " ") + "'");
+            }
+            fields.add(field);
+        }
+        return new StructBody(name, fields, pack, null);
+    }
+
+    private static StructBody unsupported(String name, int pack, String reason) {
+        return new StructBody(name, List.of(), pack, reason);
+    }
+}
@@ -0,0 +1,26 @@
+package org.currierg.layout;
+
+import java.util.List;
+
+/**
+ * Computed layout of one struct for a given {@link Abi}.
+ *
+ * @param pack        {@code #pragma pack} value applied, or 0 for natural alignment
+ * @param tailPadding bytes added after the last field to round the size up to the alignment
+ */
+public record StructLayout(String name, Abi abi, int size, int align, int pack, List<FieldLayout> fields, int tailPadding) {
+
+    /** Padding bytes between fields plus the tail padding. */
+    public int paddingBytes() {
+        int padding = tailPadding;
+        for (FieldLayout field : fields) {
+            padding += field.padding();
+        }
+        return padding;
+    }
+
+    /** Cache lines of the given size spanned by one instance starting on a line boundary. */
+    public int cacheLines(int lineSize) {
+        return (size + lineSize - 1) / lineSize;
+    }
+}
@@ -0,0 +1,65 @@
+package org.currierg.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/** One source file parsed by the analysis, with the time spent in each step. Cache hits are not reported. */
+@Name("org.currierg.FileAnalyzed")
+@Label("File Analyzed")
+@Category("StructAnalyzer")
+@Description("A source file read, decoded and scanned by the analysis")
+class FileAnalyzedEvent extends jdk.jfr.Event {
+    @Label("Path")
+    String path;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Matches")
+    int matches;
+
+    @Label("Definitions")
+    int definitions;
+
+    @Label("Usages")
+    int usages;
+
+    @Label("Errors")
+    int errors;
+
+    @Label("Regex Fallbacks")
+    int fallbacks;
+
+    @Label("Read")
+    @Timespan
+    long read;
+
+    @Label("Decode")
+    @Timespan
+    long decode;
+
+    @Label("Strip Comments")
+    @Timespan
+    long stripComments;
+
+    @Label("Line Index")
+    @Timespan
+    long lineIndex;
+
+    @Label("Detect")
+    @Timespan
+    long detect;
+
+    @Label("Includes")
+    @Timespan
+    long includes;
+
+    @Label("Usage Scan")
+    @Timespan
+    long usageScan;
+}
@@ -0,0 +1,49 @@
+package org.currierg.metrics;
+
+/**
+ * Step timings and counts for one source file, filled in by the thread that parses it. Each {@link #lap} charges the
+ * time since the previous lap (or since creation) to a step, so callers only mark the end of each step. Reported
+ * through {@link Metrics#file}, which also commits its JFR event.
+ */
+public final class FileProbe {
+    public enum Step {
+        READ, DECODE, STRIP_COMMENTS, LINE_INDEX, DETECT, INCLUDES, USAGES
+    }
+
+    final FileAnalyzedEvent event = new FileAnalyzedEvent();
+    final long[] nanos = new long[Step.values().length];
+    final long started;
+    private long mark;
+    long bytes;
+    int matches;
+    int fallbacks;
+
+    public FileProbe() {
+        event.begin();
+        started = System.nanoTime();
+        mark = started;
+    }
+
+    public void lap(Step step) {
+        long now = System.nanoTime();
+        nanos[step.ordinal()] += now - mark;
+        mark = now;
+    }
+
+    public void bytes(long bytes) {
+        this.bytes += bytes;
+    }
+
+    public void match() {
+        matches++;
+    }
+
+    /** A step whose regex ran over the match budget and was redone on the linear path. */
+    public void fallback() {
+        fallbacks++;
+    }
+
+    long elapsed() {
+        return mark - started;
+    }
+}
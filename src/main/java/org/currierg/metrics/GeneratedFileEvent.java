@@ -0,0 +1,19 @@
+package org.currierg.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** One Java file written by the class generator. */
+@Name("org.currierg.GeneratedFile")
+@Label("Generated File")
+@Category("StructAnalyzer")
+@Description("A Java source file written by the class generator")
+class GeneratedFileEvent extends jdk.jfr.Event {
+    @Label("File")
+    String file;
+
+    @Label("Classes")
+    int classes;
+}
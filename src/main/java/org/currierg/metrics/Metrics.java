@@ -0,0 +1,279 @@
+package org.currierg.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Timings and counters of one analysis or generation run. Run-level phases are wall-clock times on the calling
+ * thread; file steps are summed over all worker threads, so with several workers they add up to more than the wall
+ * time. Also keeps the K slowest files. Everything is published twice: as JDK Flight Recorder events (category
+ * StructAnalyzer; free when no recording is running) and as JSON through {@link #write}. Safe to use from several
+ * threads.
+ */
+public final class Metrics {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String run;
+    private final int topK;
+    private final Instant startedAt = Instant.now();
+    private final long started = System.nanoTime();
+    private final Map<String, long[]> phases = new LinkedHashMap<>();
+    private final LongAdder[] stepNanos = new LongAdder[FileProbe.Step.values().length];
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final PriorityQueue<Sample> slowest = new PriorityQueue<>(Comparator.comparingLong(Sample::nanos));
+
+    public record Sample(String path, long nanos, long bytes) {
+    }
+
+    /** A timed phase without a result. */
+    @FunctionalInterface
+    public interface Phase<E extends Exception> {
+        void run() throws E;
+    }
+
+    /** A timed phase that computes a result. */
+    @FunctionalInterface
+    public interface ValuePhase<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    public Metrics(String run, int topK) {
+        this.run = run;
+        this.topK = topK;
+        for (int i = 0; i < stepNanos.length; i++) {
+            stepNanos[i] = new LongAdder();
+        }
+    }
+
+    /** Runs and times a run-level phase, e.g. {@code metrics.time("writeJson", this::writeJsonOutput)}. */
+    public <E extends Exception> void time(String name, Phase<E> phase) throws E {
+        Timer timer = start(name);
+        try {
+            phase.run();
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /** Same as {@link #time(String, Phase)} for a phase that returns a value. */
+    public <T, E extends Exception> T time(String name, ValuePhase<T, E> phase) throws E {
+        Timer timer = start(name);
+        try {
+            return phase.run();
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /** Times a run-level phase until {@link Timer#stop} is called, for code the lambda forms do not fit. */
+    public Timer start(String name) {
+        return new Timer(name);
+    }
+
+    public void count(String counter, long delta) {
+        counters.computeIfAbsent(counter, k -> new LongAdder()).add(delta);
+    }
+
+    /** Current value of a counter; 0 if it was never counted. */
+    public long counter(String counter) {
+        LongAdder value = counters.get(counter);
+        return value == null ? 0 : value.sum();
+    }
+
+    /** Records a parsed file: adds its steps and counts to the totals and commits its JFR event. */
+    public void file(String path, FileProbe probe, int definitions, int usages, int includes, int errors) {
+        long[] nanos = probe.nanos;
+        for (int i = 0; i < nanos.length; i++) {
+            stepNanos[i].add(nanos[i]);
+        }
+        count("files", 1);
+        count("bytesRead", probe.bytes);
+        count("matches", probe.matches);
+        count("definitions", definitions);
+        count("usages", usages);
+        count("includes", includes);
+        count("errors", errors);
+        if (probe.fallbacks > 0) {
+            count("regexFallbacks", probe.fallbacks);
+        }
+        sample(path, probe.elapsed(), probe.bytes);
+
+        FileAnalyzedEvent event = probe.event;
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.bytes = probe.bytes;
+            event.matches = probe.matches;
+            event.definitions = definitions;
+            event.usages = usages;
+            event.errors = errors;
+            event.fallbacks = probe.fallbacks;
+            event.read = nanos[FileProbe.Step.READ.ordinal()];
+            event.decode = nanos[FileProbe.Step.DECODE.ordinal()];
+            event.stripComments = nanos[FileProbe.Step.STRIP_COMMENTS.ordinal()];
+            event.lineIndex = nanos[FileProbe.Step.LINE_INDEX.ordinal()];
+            event.detect = nanos[FileProbe.Step.DETECT.ordinal()];
+            event.includes = nanos[FileProbe.Step.INCLUDES.ordinal()];
+            event.usageScan = nanos[FileProbe.Step.USAGES.ordinal()];
+            event.commit();
+        }
+    }
+
+    /** Records a file written by the generator; it competes for the slowest-files list like a parsed file. */
+    public void generated(String file, int classes, long nanos) {
+        count("filesWritten", 1);
+        count("classes", classes);
+        sample(file, nanos, 0);
+        GeneratedFileEvent event = new GeneratedFileEvent();
+        if (event.isEnabled()) {
+            event.file = file;
+            event.classes = classes;
+            event.commit();
+        }
+    }
+
+    private void sample(String path, long nanos, long bytes) {
+        if (topK <= 0) {
+            return;
+        }
+        synchronized (slowest) {
+            if (slowest.size() < topK) {
+                slowest.add(new Sample(path, nanos, bytes));
+            } else if (slowest.peek().nanos() < nanos) {
+                slowest.poll();
+                slowest.add(new Sample(path, nanos, bytes));
+            }
+        }
+    }
+
+    private synchronized void addPhase(String name, long nanos) {
+        long[] totals = phases.computeIfAbsent(name, k -> new long[2]);
+        totals[0] += nanos;
+        totals[1]++;
+    }
+
+    public List<Sample> slowest() {
+        synchronized (slowest) {
+            List<Sample> sorted = new ArrayList<>(slowest);
+            sorted.sort(Comparator.comparingLong(Sample::nanos).reversed());
+            return sorted;
+        }
+    }
+
+    /** e.g. "analyze: 812 ms; walkAndParse 640 ms, resolve 35 ms; slowest sub/big.h 91.2 ms" */
+    public synchronized String summary() {
+        StringBuilder text = new StringBuilder(run).append(": ").append(Math.round(millis(System.nanoTime() - started))).append(" ms");
+        String separator = "; ";
+        for (Map.Entry<String, long[]> phase : phases.entrySet()) {
+            text.append(separator).append(phase.getKey()).append(' ').append(Math.round(millis(phase.getValue()[0]))).append(" ms");
+            separator = ", ";
+        }
+        List<Sample> top = slowest();
+        if (!top.isEmpty()) {
+            text.append("; slowest ").append(top.get(0).path()).append(' ')
+                    .append(String.format("%.1f", millis(top.get(0).nanos()))).append(" ms");
+        }
+        return text.toString();
+    }
+
+    public synchronized void write(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (OutputStream out = Files.newOutputStream(file);
+             JsonGenerator json = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8).useDefaultPrettyPrinter()) {
+            json.writeStartObject();
+            json.writeStringField("run", run);
+            json.writeStringField("startedAt", startedAt.toString());
+            json.writeNumberField("wallMillis", millis(System.nanoTime() - started));
+
+            json.writeObjectFieldStart("phases");
+            for (Map.Entry<String, long[]> phase : phases.entrySet()) {
+                json.writeObjectFieldStart(phase.getKey());
+                json.writeNumberField("millis", millis(phase.getValue()[0]));
+                json.writeNumberField("count", phase.getValue()[1]);
+                json.writeEndObject();
+            }
+            json.writeEndObject();
+
+            // Only runs that parsed files have steps; cache hits and generation do not
+            if (counters.containsKey("files")) {
+                json.writeObjectFieldStart("fileSteps");
+                for (FileProbe.Step step : FileProbe.Step.values()) {
+                    json.writeNumberField(stepName(step), millis(stepNanos[step.ordinal()].sum()));
+                }
+                json.writeEndObject();
+            }
+
+            json.writeObjectFieldStart("counters");
+            for (Map.Entry<String, LongAdder> counter : new TreeMap<>(counters).entrySet()) {
+                json.writeNumberField(counter.getKey(), counter.getValue().sum());
+            }
+            json.writeEndObject();
+
+            json.writeArrayFieldStart("slowestFiles");
+            for (Sample sample : slowest()) {
+                json.writeStartObject();
+                json.writeStringField("path", sample.path());
+                json.writeNumberField("millis", millis(sample.nanos()));
+                json.writeNumberField("bytes", sample.bytes());
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    // READ -> "readMillis", STRIP_COMMENTS -> "stripCommentsMillis"
+    private static String stepName(FileProbe.Step step) {
+        StringBuilder name = new StringBuilder();
+        for (String word : step.name().toLowerCase().split("_")) {
+            name.append(name.length() == 0 ? word : Character.toUpperCase(word.charAt(0)) + word.substring(1));
+        }
+        return name.append("Millis").toString();
+    }
+
+    // Milliseconds with microsecond resolution
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1e3) / 1e3;
+    }
+
+    public final class Timer {
+        private final String name;
+        private final PhaseEvent event = new PhaseEvent();
+        private final long start;
+
+        private Timer(String name) {
+            this.name = name;
+            event.begin();
+            this.start = System.nanoTime();
+        }
+
+        public void stop() {
+            long nanos = System.nanoTime() - start;
+            event.end();
+            if (event.shouldCommit()) {
+                event.run = run;
+                event.phase = name;
+                event.commit();
+            }
+            addPhase(name, nanos);
+        }
+    }
+}
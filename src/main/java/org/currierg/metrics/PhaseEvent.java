@@ -0,0 +1,19 @@
+package org.currierg.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** One run-level phase of an analysis or generation run, e.g. resolve or writeJson. */
+@Name("org.currierg.Phase")
+@Label("Phase")
+@Category("StructAnalyzer")
+@Description("A run-level phase of analysis or class generation")
+class PhaseEvent extends jdk.jfr.Event {
+    @Label("Run")
+    String run;
+
+    @Label("Phase")
+    String phase;
+}
@@ -0,0 +1,182 @@
+package org.currierg.serve;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.currierg.util.LogUtil;
+
+/**
+ * Local HTTP endpoint over a {@link StructQuerySnapshot}. Binds to the loopback interface only. Handlers read the
+ * immutable snapshot and update lock-free per-endpoint counters, so concurrent clients never contend on a shared
+ * lock.
+ * <pre>
+ * GET /struct?name=foo_t          one struct with its definition and usage locations
+ * GET /prefix?prefix=foo&amp;limit=50 names (and counts) starting with a prefix
+ * GET /file?path=dir/foo.h        structs defined or used in one file
+ * GET /top?n=20                   structs with the most references
+ * GET /metrics                    request counts and latencies per endpoint
+ * </pre>
+ */
+public class StructQueryServer {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final StructQuerySnapshot snapshot;
+    private final LogUtil log;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, EndpointMetrics> metrics = new LinkedHashMap<>();
+
+    private static final class EndpointMetrics {
+        final LongAdder requests = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        Map<String, Object> toMap() {
+            long count = requests.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("requests", count);
+            map.put("errors", errors.sum());
+            map.put("meanMicros", count == 0 ? 0 : totalNanos.sum() / count / 1000);
+            map.put("maxMicros", maxNanos.get() / 1000);
+            return map;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Query {
+        Object answer(Map<String, String> params);
+    }
+
+    public StructQueryServer(StructQuerySnapshot snapshot, int port, int threads, LogUtil log) throws IOException {
+        this.snapshot = snapshot;
+        this.log = log;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+
+        register("/struct", p -> snapshot.byName(required(p, "name")));
+        register("/prefix", p -> snapshot.byPrefix(required(p, "prefix"), intParam(p, "limit", 100)));
+        register("/file", p -> snapshot.byFile(required(p, "path")));
+        register("/top", p -> snapshot.top(intParam(p, "n", 10)));
+        // Registered last so it is not part of the map it reports on while being built
+        server.createContext("/metrics", exchange -> {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("structs", snapshot.size());
+            metrics.forEach((path, m) -> body.put(path, m.toMap()));
+            respond(exchange, 200, body);
+        });
+    }
+
+    private void register(String path, Query query) {
+        EndpointMetrics m = new EndpointMetrics();
+        metrics.put(path, m);
+        server.createContext(path, handler(query, m));
+    }
+
+    private HttpHandler handler(Query query, EndpointMetrics m) {
+        return exchange -> {
+            long start = System.nanoTime();
+            try {
+                if (!"GET".equals(exchange.getRequestMethod())) {
+                    m.errors.increment();
+                    respond(exchange, 405, Map.of("error", "Only GET is supported"));
+                    return;
+                }
+                Object answer = query.answer(parseQuery(exchange.getRequestURI().getRawQuery()));
+                if (answer == null) {
+                    respond(exchange, 404, Map.of("error", "Not found"));
+                } else {
+                    respond(exchange, 200, answer);
+                }
+            } catch (IllegalArgumentException e) {
+                m.errors.increment();
+                respond(exchange, 400, Map.of("error", e.getMessage()));
+            } catch (RuntimeException e) {
+                m.errors.increment();
+                respond(exchange, 500, Map.of("error", e.getClass().getSimpleName() + " - " + e.getMessage()));
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                m.requests.increment();
+                m.totalNanos.add(elapsed);
+                m.maxNanos.accumulate(elapsed);
+            }
+        };
+    }
+
+    private static void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = MAPPER.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq >= 0 ? pair.substring(0, eq) : pair, StandardCharsets.UTF_8);
+            String value = eq >= 0 ? URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8) : "";
+            params.put(key, value);
+        }
+        return params;
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing query parameter: " + name);
+        }
+        return value;
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Query parameter " + name + " must be a number: " + value);
+        }
+    }
+
+    public void start() {
+        server.start();
+        log.info("Serving " + snapshot.size() + " structs on http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort());
+    }
+
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        metrics.forEach((path, m) -> log.info("Served " + path + ": " + m.toMap()));
+    }
+}
@@ -0,0 +1,171 @@
+package org.currierg.serve;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.currierg.analysis.FileTable;
+import org.currierg.analysis.LocationList;
+
+/**
+ * Read-only view of one analysis run, arranged for the query server: by name (exact and prefix), by file and by
+ * reference count. Locations stay in the analysis' packed {@link LocationList}s; Strings are only built for the
+ * entries a response actually contains. Built once and never mutated afterwards, so any number of request threads
+ * can read it without locking.
+ */
+public final class StructQuerySnapshot {
+    public record Entry(String name, int count, List<String> definitionFiles, List<String> usageFiles) {
+    }
+
+    public record Summary(String name, int count) {
+    }
+
+    public record FileHit(String name, int line, boolean definition) {
+    }
+
+    private record Struct(int ordinal, String name, LocationList definitions, LocationList usages) {
+        int count() {
+            return definitions.size() + usages.size();
+        }
+    }
+
+    private final FileTable files;
+    private final NavigableMap<String, Struct> byName;
+    private final List<Struct> byOrdinal;
+    private final Map<String, Integer> fileIds;
+    // Per file id: (struct ordinal << 32 | line << 1 | isDefinition), sorted by line
+    private final long[][] byFile;
+    private final List<Summary> byCount;
+
+    private StructQuerySnapshot(FileTable files, NavigableMap<String, Struct> byName, List<Struct> byOrdinal,
+                                Map<String, Integer> fileIds, long[][] byFile, List<Summary> byCount) {
+        this.files = files;
+        this.byName = byName;
+        this.byOrdinal = byOrdinal;
+        this.fileIds = fileIds;
+        this.byFile = byFile;
+        this.byCount = byCount;
+    }
+
+    public static Builder builder(FileTable files) {
+        return new Builder(files);
+    }
+
+    public static final class Builder {
+        private final FileTable files;
+        private final TreeMap<String, Struct> byName = new TreeMap<>();
+        private final List<Struct> byOrdinal = new ArrayList<>();
+
+        private Builder(FileTable files) {
+            this.files = files;
+        }
+
+        public Builder add(String name, LocationList definitions, LocationList usages) {
+            Struct struct = new Struct(byOrdinal.size(), name, definitions, usages);
+            byOrdinal.add(struct);
+            byName.put(name, struct);
+            return this;
+        }
+
+        public StructQuerySnapshot build() {
+            int[] hitCounts = new int[files.size()];
+            for (Struct s : byOrdinal) {
+                count(hitCounts, s.definitions());
+                count(hitCounts, s.usages());
+            }
+            long[][] byFile = new long[files.size()][];
+            for (int id = 0; id < byFile.length; id++) {
+                byFile[id] = new long[hitCounts[id]];
+            }
+            int[] fill = new int[files.size()];
+            for (Struct s : byOrdinal) {
+                fillHits(byFile, fill, s.ordinal(), s.definitions(), 1);
+                fillHits(byFile, fill, s.ordinal(), s.usages(), 0);
+            }
+            Map<String, Integer> fileIds = new HashMap<>();
+            for (int id = 0; id < byFile.length; id++) {
+                long[] hits = byFile[id];
+                // Order by line, then by struct
+                for (int i = 0; i < hits.length; i++) {
+                    hits[i] = (hits[i] & 0xFFFFFFFFL) << 32 | hits[i] >>> 32;
+                }
+                Arrays.sort(hits);
+                for (int i = 0; i < hits.length; i++) {
+                    hits[i] = (hits[i] & 0xFFFFFFFFL) << 32 | hits[i] >>> 32;
+                }
+                fileIds.put(files.path(id), id);
+            }
+
+            List<Summary> counts = new ArrayList<>();
+            byOrdinal.forEach(s -> counts.add(new Summary(s.name(), s.count())));
+            counts.sort(Comparator.comparingInt(Summary::count).reversed().thenComparing(Summary::name));
+            return new StructQuerySnapshot(files, Collections.unmodifiableNavigableMap(byName), List.copyOf(byOrdinal),
+                    Map.copyOf(fileIds), byFile, List.copyOf(counts));
+        }
+
+        private static void count(int[] hitCounts, LocationList locations) {
+            for (int i = 0; i < locations.size(); i++) {
+                hitCounts[locations.fileId(i)]++;
+            }
+        }
+
+        private static void fillHits(long[][] byFile, int[] fill, int ordinal, LocationList locations, int definition) {
+            for (int i = 0; i < locations.size(); i++) {
+                int fileId = locations.fileId(i);
+                byFile[fileId][fill[fileId]++] = (long) ordinal << 32 | (long) locations.line(i) << 1 | definition;
+            }
+        }
+    }
+
+    public int size() {
+        return byName.size();
+    }
+
+    public Entry byName(String name) {
+        Struct struct = byName.get(name);
+        if (struct == null) {
+            return null;
+        }
+        return new Entry(struct.name(), struct.count(), format(struct.definitions()), format(struct.usages()));
+    }
+
+    public List<Summary> byPrefix(String prefix, int limit) {
+        List<Summary> result = new ArrayList<>();
+        for (Struct s : byName.tailMap(prefix, true).values()) {
+            if (!s.name().startsWith(prefix) || result.size() >= limit) break;
+            result.add(new Summary(s.name(), s.count()));
+        }
+        return result;
+    }
+
+    public List<FileHit> byFile(String file) {
+        Integer id = fileIds.get(file);
+        if (id == null) {
+            return List.of();
+        }
+        long[] hits = byFile[id];
+        List<FileHit> result = new ArrayList<>(hits.length);
+        for (long hit : hits) {
+            result.add(new FileHit(byOrdinal.get((int) (hit >>> 32)).name(), (int) (hit & 0xFFFFFFFFL) >>> 1, (hit & 1) == 1));
+        }
+        return result;
+    }
+
+    public List<Summary> top(int n) {
+        return byCount.subList(0, Math.min(Math.max(n, 0), byCount.size()));
+    }
+
+    private List<String> format(LocationList locations) {
+        List<String> result = new ArrayList<>(locations.size());
+        for (int i = 0; i < locations.size(); i++) {
+            result.add(files.format(locations, i));
+        }
+        return result;
+    }
+}
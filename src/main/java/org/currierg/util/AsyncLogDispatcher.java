@@ -0,0 +1,194 @@
+package org.currierg.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.ErrorManager;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * Single root handler that hands records to a background thread through a bounded queue and routes each one to
+ * exactly one log file by logger name: {@code org.currierg.Analysis} to analysis.log, {@code org.currierg.Generator}
+ * to generate.log, everything else to app.log. Logging threads only pay for the enqueue; when the queue is full they
+ * block until the writer catches up, so nothing is dropped while the dispatcher is open. Records published once
+ * {@link #close()} has started (shutdown hooks logging while {@code LogManager} resets) are written by the calling
+ * thread instead, until the files themselves are closed; anything later is discarded. Configured in
+ * logging.properties under this class name: {@code queue}, {@code formatter}, and
+ * {@code pattern}/{@code level}/{@code logger} per route ({@code app}, {@code analysis}, {@code generate}).
+ */
+public class AsyncLogDispatcher extends Handler {
+    private static final LogRecord SHUTDOWN = new LogRecord(Level.OFF, "shutdown");
+
+    private final List<Route> routes = new ArrayList<>();
+    private final Route fallback;
+    private final BlockingQueue<LogRecord> queue;
+    private final Thread writer;
+    private final AtomicLong queued = new AtomicLong();
+    // Held shared while enqueueing and exclusively to close, so no record is queued behind SHUTDOWN
+    private final ReadWriteLock closing = new ReentrantReadWriteLock();
+    private volatile long written;
+    private volatile boolean closed;
+
+    private record Route(String loggerPrefix, FileHandler handler) {
+    }
+
+    public AsyncLogDispatcher() throws IOException {
+        LogManager manager = LogManager.getLogManager();
+        String prefix = getClass().getName();
+        Formatter formatter = newFormatter(manager.getProperty(prefix + ".formatter"));
+        this.fallback = route(manager, prefix + ".app", "org.currierg.Main", "app.log", formatter);
+        routes.add(route(manager, prefix + ".analysis", "org.currierg.Analysis", "analysis.log", formatter));
+        routes.add(route(manager, prefix + ".generate", "org.currierg.Generator", "generate.log", formatter));
+        routes.add(fallback);
+
+        String capacity = manager.getProperty(prefix + ".queue");
+        this.queue = new ArrayBlockingQueue<>(capacity == null ? 8192 : Integer.parseInt(capacity.trim()));
+        String level = manager.getProperty(prefix + ".level");
+        super.setLevel(level == null ? Level.ALL : Level.parse(level.trim()));
+
+        this.writer = new Thread(this::drain, "log-dispatcher");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private static Route route(LogManager manager, String key, String defaultLogger, String defaultPattern,
+                               Formatter formatter) throws IOException {
+        String logger = manager.getProperty(key + ".logger");
+        String pattern = manager.getProperty(key + ".pattern");
+        String level = manager.getProperty(key + ".level");
+        FileHandler handler = new FileHandler(pattern == null ? defaultPattern : pattern.trim());
+        handler.setFormatter(formatter);
+        handler.setLevel(level == null ? Level.INFO : Level.parse(level.trim()));
+        return new Route(logger == null ? defaultLogger : logger.trim(), handler);
+    }
+
+    private static Formatter newFormatter(String className) {
+        if (className == null || className.isBlank()) {
+            return new SimpleFormatter();
+        }
+        try {
+            return (Formatter) Class.forName(className.trim()).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            return new SimpleFormatter();
+        }
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (!isLoggable(record)) {
+            return;
+        }
+        // Resolve the caller now; inferring it later on the writer thread would walk the wrong stack
+        record.getSourceClassName();
+        closing.readLock().lock();
+        try {
+            if (closed) {
+                routeFor(record).handler.publish(record);
+                return;
+            }
+            queue.put(record);
+            queued.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reportError("Interrupted while queueing log record", e, ErrorManager.WRITE_FAILURE);
+        } finally {
+            closing.readLock().unlock();
+        }
+    }
+
+    private void drain() {
+        List<LogRecord> batch = new ArrayList<>(256);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, 255);
+                for (LogRecord record : batch) {
+                    if (record == SHUTDOWN) {
+                        flushAll();
+                        return;
+                    }
+                    routeFor(record).handler.publish(record);
+                    written++;
+                }
+                batch.clear();
+                if (queue.isEmpty()) {
+                    flushAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            flushAll();
+        }
+    }
+
+    private Route routeFor(LogRecord record) {
+        String name = record.getLoggerName();
+        if (name != null) {
+            for (Route route : routes) {
+                if (name.startsWith(route.loggerPrefix)) {
+                    return route;
+                }
+            }
+        }
+        return fallback;
+    }
+
+    private void flushAll() {
+        for (Route route : routes) {
+            route.handler.flush();
+        }
+    }
+
+    /** Also applies the level to every route, so a command-line override reaches the files. */
+    @Override
+    public synchronized void setLevel(Level level) {
+        super.setLevel(level);
+        for (Route route : routes) {
+            route.handler.setLevel(level);
+        }
+    }
+
+    /** Waits until every record queued so far is written, then flushes the files. */
+    @Override
+    public void flush() {
+        long target = queued.get();
+        while (written < target && writer.isAlive()) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        flushAll();
+    }
+
+    @Override
+    public void close() {
+        closing.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            closing.writeLock().unlock();
+        }
+        try {
+            queue.put(SHUTDOWN);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Route route : routes) {
+            route.handler.close();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.currierg.util;
+
+import java.util.Arrays;
+
+/**
+ * Line-start offset table for one source text. Built once per file, after which offset to line/column lookups are
+ * a binary search instead of a walk over every line.
+ */
+public final class LineIndex {
+    private final int[] lineStarts;
+    private final int lineCount;
+    private final int length;
+
+    private LineIndex(int[] lineStarts, int lineCount, int length) {
+        this.lineStarts = lineStarts;
+        this.lineCount = lineCount;
+        this.length = length;
+    }
+
+    public static LineIndex of(CharSequence text) {
+        int length = text.length();
+        int[] starts = new int[Math.max(16, length / 32)];
+        int count = 0;
+        starts[count++] = 0;
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) == '\n') {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                }
+                starts[count++] = i + 1;
+            }
+        }
+        return new LineIndex(starts, count, length);
+    }
+
+    public int lineCount() {
+        return lineCount;
+    }
+
+    /** 1-based line containing the given character offset. */
+    public int lineOf(int offset) {
+        int idx = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+        return idx >= 0 ? idx + 1 : -idx - 1;
+    }
+
+    /** 1-based column of the given character offset within its line. */
+    public int columnOf(int offset) {
+        return offset - lineStarts[lineOf(offset) - 1] + 1;
+    }
+
+    /** Offset of the first character of a 1-based line. */
+    public int startOf(int line) {
+        if (line < 1 || line > lineCount) {
+            throw new IndexOutOfBoundsException("Line " + line + " out of range 1.." + lineCount);
+        }
+        return lineStarts[line - 1];
+    }
+
+    /** Offset just past the last character of a 1-based line, excluding the line terminator. */
+    public int endOf(int line) {
+        return line < lineCount ? startOf(line + 1) - 1 : length;
+    }
+}
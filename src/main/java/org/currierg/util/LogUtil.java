@@ -1,35 +1,77 @@
 package org.currierg.util;
 
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+/**
+ * Prefixes messages with the calling class and method. The level is checked before anything else, so a filtered
+ * call costs neither the caller lookup nor, with the {@link Supplier} overloads, building the message. The caller
+ * is found with a {@link StackWalker} that stops at the first frame outside this class, and is stored on the record
+ * so handlers on other threads do not have to infer it.
+ */
 public class LogUtil {
+    private static final StackWalker WALKER = StackWalker.getInstance();
+    private static final String NAME = LogUtil.class.getName();
+
     private final Logger logger;
 
     public LogUtil(Logger logger) {
         this.logger = logger;
     }
 
-    private String getLogPrefix(String level) {
-        String className = Thread.currentThread().getStackTrace()[3].getClassName();
-        String simpleClassName = className.substring(className.lastIndexOf('.') + 1);
-        String methodName = Thread.currentThread().getStackTrace()[3].getMethodName();
-        return "[" + simpleClassName + "] [" + methodName + "] ";
+    public boolean isLoggable(Level level) {
+        return logger.isLoggable(level);
     }
 
     public void info(String message) {
-        logger.info(getLogPrefix("INFO") + message);
+        log(Level.INFO, message);
+    }
+
+    public void info(Supplier<String> message) {
+        log(Level.INFO, message);
     }
 
     public void warning(String message) {
-        logger.warning(getLogPrefix("WARNING") + message);
+        log(Level.WARNING, message);
+    }
+
+    public void warning(Supplier<String> message) {
+        log(Level.WARNING, message);
     }
 
     public void severe(String message) {
-        logger.severe(getLogPrefix("SEVERE") + message);
+        log(Level.SEVERE, message);
+    }
+
+    public void severe(Supplier<String> message) {
+        log(Level.SEVERE, message);
     }
 
     public void log(Level level, String message) {
-        logger.log(level, getLogPrefix(level.getName()) + message);
+        if (logger.isLoggable(level)) {
+            emit(level, message);
+        }
+    }
+
+    public void log(Level level, Supplier<String> message) {
+        if (logger.isLoggable(level)) {
+            emit(level, message.get());
+        }
+    }
+
+    private void emit(Level level, String message) {
+        StackWalker.StackFrame caller = WALKER.walk(frames -> frames
+                .filter(f -> !f.getClassName().equals(NAME))
+                .findFirst()
+                .orElse(null));
+        if (caller == null) {
+            logger.log(level, message);
+            return;
+        }
+        String className = caller.getClassName();
+        String simpleClassName = className.substring(className.lastIndexOf('.') + 1);
+        logger.logp(level, className, caller.getMethodName(),
+                "[" + simpleClassName + "] [" + caller.getMethodName() + "] " + message);
     }
-}
\ No newline at end of file
+}
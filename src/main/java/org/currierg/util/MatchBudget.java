@@ -0,0 +1,117 @@
+package org.currierg.util;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Time budget for the regex matching of one source file ({@code analysis.match.budget.ms}). Text handed to a matcher
+ * through {@link #guard} checks the clock every few thousand character reads and throws {@link Exceeded} once the
+ * budget is spent, which cuts off backtracking that would otherwise stall a worker for minutes. The budget covers
+ * every pattern run on the file, so once one of them has spent it the others give up quickly as well; callers then
+ * redo the step with a linear scan and record it through {@link #fellBack}. Not thread-safe; one per file.
+ */
+public final class MatchBudget {
+    private static final int CHECK_INTERVAL = 4096;
+
+    private final long budgetNanos;
+    private final long started = System.nanoTime();
+    private final List<Fallback> fallbacks = new ArrayList<>(2);
+
+    /** A step that was redone on the linear path; {@code nanos} is the time since the file's budget started. */
+    public record Fallback(String pattern, String reason, long nanos) {
+    }
+
+    /** Thrown from a guarded text's {@code charAt} once the budget is spent. Carries no stack trace. */
+    public static final class Exceeded extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private Exceeded() {
+            super("Match budget exceeded", null, false, false);
+        }
+    }
+
+    private MatchBudget(long budgetMillis) {
+        this.budgetNanos = budgetMillis * 1_000_000;
+    }
+
+    /** Starts a budget of the given milliseconds; zero or less means unlimited. */
+    public static MatchBudget start(long budgetMillis) {
+        return new MatchBudget(budgetMillis);
+    }
+
+    public boolean limited() {
+        return budgetNanos > 0;
+    }
+
+    public long budgetMillis() {
+        return budgetNanos / 1_000_000;
+    }
+
+    /** Wraps text for a matcher; unlimited budgets return the text itself. */
+    public CharSequence guard(CharSequence text) {
+        return limited() ? new Guarded(text) : text;
+    }
+
+    /** Records that the pattern was cut off by the budget or overflowed the stack and its step was redone linearly. */
+    public void fellBack(String pattern, Throwable cause) {
+        String reason = cause instanceof Exceeded
+                ? "exceeded the " + budgetMillis() + " ms match budget"
+                : "overflowed the stack";
+        fallbacks.add(new Fallback(pattern, reason, System.nanoTime() - started));
+    }
+
+    public List<Fallback> fallbacks() {
+        return fallbacks;
+    }
+
+    private void check() {
+        if (System.nanoTime() - started > budgetNanos) {
+            throw new Exceeded();
+        }
+    }
+
+    private final class Guarded implements CharSequence {
+        private final CharSequence text;
+        // Array-backed buffers (all SourceText texts) are read directly, which keeps the wrapper close to free
+        private final char[] array;
+        private final int offset;
+        private int reads;
+
+        Guarded(CharSequence text) {
+            this.text = text;
+            if (text instanceof CharBuffer buffer && buffer.hasArray()) {
+                this.array = buffer.array();
+                this.offset = buffer.arrayOffset() + buffer.position();
+            } else {
+                this.array = null;
+                this.offset = 0;
+            }
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (++reads == CHECK_INTERVAL) {
+                reads = 0;
+                check();
+            }
+            return array != null ? array[offset + index] : text.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        // Only used for group() and similar copies, never for matching, so it is not guarded
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return text.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+}
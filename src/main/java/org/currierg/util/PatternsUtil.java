@@ -29,9 +29,9 @@ public final class PatternsUtil {
 
     // Field parsing pattern (from PojoGenerator)
     public static final Pattern STRUCT_FIELD_PATTERN = Pattern.compile(
-            "^\\s*(?:(struct)\\s+)?(\\w+)\\s*(\\*?)\\s*(\\w+)\\s*(?:\\[(\\d*)\\])?\\s*;",
+            "(?:^|(?<=;))\\s*(?:(?:const|volatile)\\s+)*(?:(struct)\\s+)?((?:(?:const|volatile|signed|unsigned|short|long)\\s+)*\\w+\\b)\\s*(\\*?)\\s*(\\w+)\\s*(?:\\[(\\d*)\\])?\\s*;",
             Pattern.MULTILINE
-    ); // Struct field: [struct] Type [*] Name [Size];
+    ); // Struct field: [struct] [qualifiers] Type [*] Name [Size]; e.g. unsigned long long id;
 
     // Usage detection pattern (from Main)
     public static final Pattern STRUCT_USAGE_PATTERN = Pattern.compile(
@@ -39,6 +39,11 @@ public final class PatternsUtil {
                     "(?:struct\\s+)?(\\w+)\\s*\\w+\\s*=\\s*\\{"
     ); // Struct usage: struct Name *var[], Name var = {...}
 
+    // Include directive pattern (for the include graph)
+    public static final Pattern INCLUDE_PATTERN = Pattern.compile(
+            "^\\s*#\\s*include\\s*(?:<([^>\\r\\n]+)>|\"([^\"\\r\\n]+)\")", Pattern.MULTILINE
+    ); // Include directive: #include <system.h> or #include "local.h"
+
     // Comment removal pattern (from Main)
     public static final Pattern COMMENT_REMOVAL_PATTERN = Pattern.compile(
             "(//.*?$)|(/\\*[^*]*\\*+([^/*][^*]*\\*+)*/)", Pattern.MULTILINE
@@ -46,12 +51,12 @@ public final class PatternsUtil {
 
     // Broad struct detection pattern (from Main)
     public static final Pattern BROAD_STRUCT_PATTERN = Pattern.compile(
-            "(typedef\\s+struct\\s*(?:\\w+\\s*)?\\{[^}]*\\}\\s*\\w+;)|" +
-                    "(struct\\s+\\w+\\s*\\{[^}]*\\})|" +
-                    "(#pragma\\s+pack\\s*\\(\\d+\\)\\s*struct\\s+\\w+\\s*\\{[^}]*\\})|" +
-                    "(struct\\s+\\w+\\s*;)",
+            "(?<typedef>typedef\\s+struct\\s*(?:(?<typedefTag>\\w+)\\s*)?\\{[^}]*\\}\\s*(?<typedefName>\\w+);)|" +
+                    "(?<basic>struct\\s+(?<basicName>\\w+)\\s*\\{[^}]*\\})|" +
+                    "(?<pragma>#pragma\\s+pack\\s*\\((?<pragmaPack>\\d+)\\)\\s*struct\\s+(?<pragmaName>\\w+)\\s*\\{[^}]*\\})|" +
+                    "(?<forward>struct\\s+(?<forwardName>\\w+)\\s*;)",
             Pattern.DOTALL
-    ); // Catch-all for struct-like constructs
+    ); // Catch-all for struct-like constructs; named groups carry the kind and name (see StructKind)
 
     // Prevent instantiation
     private PatternsUtil() {
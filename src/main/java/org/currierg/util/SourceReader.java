@@ -0,0 +1,103 @@
+package org.currierg.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.currierg.metrics.FileProbe;
+
+/**
+ * Reads a source file exactly once and decodes it straight into a char array. Small files go through a per-thread
+ * reusable byte buffer, large ones through a buffer of their own. Files are never memory-mapped: a mapping stays
+ * until the buffer is garbage collected, and on Windows it keeps editors and builds from rewriting or deleting the
+ * file, which matters under {@code --watch}. UTF-8 is tried first; if the bytes are not valid UTF-8 the
+ * already-loaded bytes are widened as ISO-8859-1, so legacy Latin-1 headers are never read a second time.
+ */
+public final class SourceReader {
+    // Files at or below this size are read into the pooled buffer; it never grows past it
+    private static final int POOLED_MAX = 1 << 20;
+
+    private static final ThreadLocal<ByteBuffer> READ_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(64 * 1024));
+    private static final ThreadLocal<CharsetDecoder> UTF8_DECODER =
+            ThreadLocal.withInitial(() -> StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT));
+
+    private SourceReader() {
+    }
+
+    /**
+     * Returns the decoded file as an array-backed buffer owned by the caller (position 0, limit = length), which
+     * may be modified in place, e.g. by {@link SourceText#wrap(CharBuffer)}.
+     */
+    public static CharBuffer read(Path file) throws IOException {
+        return read(file, null);
+    }
+
+    /** Same as {@link #read(Path)}, charging the read and decode steps and the byte count to the probe if given. */
+    public static CharBuffer read(Path file, FileProbe probe) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large to read: " + file + " (" + size + " bytes)");
+            }
+            ByteBuffer bytes = readFully(channel, (int) size);
+            if (probe != null) {
+                probe.bytes(size);
+                probe.lap(FileProbe.Step.READ);
+            }
+            CharBuffer decoded = decode(bytes);
+            if (probe != null) {
+                probe.lap(FileProbe.Step.DECODE);
+            }
+            return decoded;
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, int size) throws IOException {
+        ByteBuffer buffer;
+        if (size > POOLED_MAX) {
+            // Decoded right away, so the bytes only live until then
+            buffer = ByteBuffer.allocate(size);
+        } else {
+            buffer = READ_BUFFER.get();
+            if (buffer.capacity() < size) {
+                buffer = ByteBuffer.allocate(Math.min(POOLED_MAX, Math.max(size, buffer.capacity() * 2)));
+                READ_BUFFER.set(buffer);
+            }
+        }
+        buffer.clear().limit(size);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // keep reading until the buffer is full or EOF
+        }
+        return buffer.flip();
+    }
+
+    static CharBuffer decode(ByteBuffer bytes) {
+        int size = bytes.remaining();
+        // UTF-8 never yields more chars than bytes, and Latin-1 yields exactly one per byte
+        char[] chars = new char[size];
+        CharBuffer out = CharBuffer.wrap(chars);
+        CharsetDecoder decoder = UTF8_DECODER.get().reset();
+        CoderResult result = decoder.decode(bytes.duplicate(), out, true);
+        if (!result.isError()) {
+            result = decoder.flush(out);
+        }
+        if (result.isError()) {
+            int base = bytes.position();
+            for (int i = 0; i < size; i++) {
+                chars[i] = (char) (bytes.get(base + i) & 0xFF);
+            }
+            return CharBuffer.wrap(chars, 0, size);
+        }
+        return out.flip();
+    }
+}
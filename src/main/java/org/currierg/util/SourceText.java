@@ -0,0 +1,166 @@
+package org.currierg.util;
+
+import java.nio.CharBuffer;
+import java.util.regex.Matcher;
+
+import org.currierg.metrics.FileProbe;
+
+/**
+ * A source file with its comments blanked out in place. Comment characters are replaced by spaces (line terminators
+ * are kept), so every offset found in {@link #text()} is also a valid offset into the original file and maps to the
+ * right line through {@link #lines()}.
+ */
+public final class SourceText {
+    private final CharBuffer text;
+    private final LineIndex lines;
+
+    private SourceText(char[] chars, int length) {
+        this.text = CharBuffer.wrap(chars, 0, length);
+        this.lines = LineIndex.of(text);
+    }
+
+    private SourceText(char[] chars, int length, FileProbe probe) {
+        this(chars, length);
+        if (probe != null) {
+            probe.lap(FileProbe.Step.LINE_INDEX);
+        }
+    }
+
+    public static SourceText of(CharSequence content) {
+        char[] chars = new char[content.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = content.charAt(i);
+        }
+        blankComments(chars, chars.length);
+        return new SourceText(chars, chars.length);
+    }
+
+    /**
+     * Takes ownership of a decoded buffer such as the one returned by {@link SourceReader#read} and blanks its
+     * comments in place, without copying the content.
+     */
+    public static SourceText wrap(CharBuffer decoded) {
+        return wrap(decoded, null, MatchBudget.start(0));
+    }
+
+    /**
+     * Same as {@link #wrap(CharBuffer)}, charging comment stripping and line indexing to the probe if given. Comment
+     * matching runs under the budget; if it is cut off, the rest of the text is blanked by a linear scan.
+     */
+    public static SourceText wrap(CharBuffer decoded, FileProbe probe, MatchBudget budget) {
+        if (!decoded.hasArray() || decoded.arrayOffset() != 0 || decoded.position() != 0) {
+            return of(decoded);
+        }
+        blankComments(decoded.array(), decoded.limit(), budget);
+        if (probe != null) {
+            probe.lap(FileProbe.Step.STRIP_COMMENTS);
+        }
+        return new SourceText(decoded.array(), decoded.limit(), probe);
+    }
+
+    public static void blankComments(char[] chars, int length) {
+        blankComments(chars, length, MatchBudget.start(0));
+    }
+
+    private static void blankComments(char[] chars, int length, MatchBudget budget) {
+        // The matcher only ever looks ahead of the last match, so blanking behind it is safe
+        Matcher matcher = PatternsUtil.COMMENT_REMOVAL_PATTERN.matcher(budget.guard(CharBuffer.wrap(chars, 0, length)));
+        int scanned = 0;
+        try {
+            while (matcher.find()) {
+                blank(chars, matcher.start(), matcher.end());
+                scanned = matcher.end();
+            }
+        } catch (MatchBudget.Exceeded | StackOverflowError e) {
+            budget.fellBack("COMMENT_REMOVAL_PATTERN", e);
+            blankCommentsLinear(chars, scanned, length);
+        }
+    }
+
+    /**
+     * Blanks the same comments as {@code COMMENT_REMOVAL_PATTERN} in one forward pass: {@code //} up to the next line
+     * terminator, and {@code /*} up to the first following {@code *}{@code /}. An unterminated block comment is left
+     * alone, as the pattern does, and once one is seen no later one can be terminated either.
+     */
+    private static void blankCommentsLinear(char[] chars, int from, int length) {
+        boolean unterminated = false;
+        int i = from;
+        while (i < length - 1) {
+            if (chars[i] == '/' && chars[i + 1] == '/') {
+                int end = i + 2;
+                while (end < length && !isLineTerminator(chars[end])) end++;
+                blank(chars, i, end);
+                i = end;
+            } else if (chars[i] == '/' && chars[i + 1] == '*' && !unterminated) {
+                int end = i + 2;
+                while (end < length - 1 && !(chars[end] == '*' && chars[end + 1] == '/')) end++;
+                if (end >= length - 1) {
+                    unterminated = true;
+                    i++;
+                } else {
+                    blank(chars, i, end + 2);
+                    i = end + 2;
+                }
+            } else {
+                i++;
+            }
+        }
+    }
+
+    // The terminators '.' does not match and '$' stops before, without UNIX_LINES
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static void blank(char[] chars, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (chars[i] != '\n' && chars[i] != '\r') {
+                chars[i] = ' ';
+            }
+        }
+    }
+
+    /** The comment-free text; same length and offsets as the original content. */
+    public CharSequence text() {
+        return text;
+    }
+
+    public LineIndex lines() {
+        return lines;
+    }
+
+    public int lineOf(int offset) {
+        return lines.lineOf(offset);
+    }
+
+    /**
+     * Returns the body between the first '{' at or after {@code from} and its matching '}', or null if a ';' is
+     * reached first (a forward declaration) or the braces never balance.
+     */
+    public String bodyAt(int from) {
+        int open = -1;
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '{') {
+                open = i;
+                break;
+            }
+            if (c == ';') {
+                return null;
+            }
+        }
+        if (open < 0) {
+            return null;
+        }
+        int depth = 0;
+        for (int i = open; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '{') {
+                depth++;
+            } else if (c == '}' && --depth == 0) {
+                return text.subSequence(open + 1, i).toString();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,177 @@
+package org.currierg;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Writes a deterministic C source tree for scale runs: the same {@link CorpusSpec} always yields byte-identical files,
+ * whatever the thread count. Files are spread over module directories of 64 and contain typedefs, basic, packed and
+ * forward-declared structs, nested struct bodies, line and block comments, includes of neighbouring headers, and
+ * usages of structs defined in other files, including files that sort later (the order-dependent case). Some files
+ * are Latin-1 encoded, and every {@code megaHeaderEvery}-th file is a mega-header.
+ *
+ * <p>Struct names are derived from file and struct indexes, and struct 0 of every file is always a full definition,
+ * so any file can refer to any other without generating it first.
+ */
+public final class CorpusGenerator {
+    private static final String[] TYPES = {"int", "unsigned int", "char", "short", "long", "unsigned long long",
+            "double", "float", "uint8_t", "uint16_t", "uint32_t", "int64_t", "size_t"};
+    private static final int FILES_PER_MODULE = 64;
+    private static final Charset LATIN_1 = StandardCharsets.ISO_8859_1;
+
+    private final CorpusSpec spec;
+
+    public CorpusGenerator(CorpusSpec spec) {
+        this.spec = spec;
+    }
+
+    /** Writes the corpus under dir, in parallel; an existing corpus for the same spec is kept as is. */
+    public void write(Path dir) throws IOException {
+        Path manifest = dir.resolve("corpus.spec");
+        if (Files.exists(manifest) && Files.readString(manifest).equals(spec.toString())) {
+            return;
+        }
+        Files.createDirectories(dir);
+        Files.deleteIfExists(manifest);
+        try {
+            IntStream.range(0, spec.files()).parallel().forEach(i -> {
+                try {
+                    Path file = dir.resolve(relativePath(i));
+                    Files.createDirectories(file.getParent());
+                    boolean latin1 = random(i, 1).nextDouble() < spec.latin1Ratio();
+                    Files.write(file, source(i, latin1).getBytes(latin1 ? LATIN_1 : StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.writeString(manifest, spec.toString());
+    }
+
+    String relativePath(int file) {
+        if (isMega(file)) {
+            return String.format("mod%04d/mega%06d.h", file / FILES_PER_MODULE, file);
+        }
+        return String.format("mod%04d/file%06d.%s", file / FILES_PER_MODULE, file, file % 4 == 0 ? "c" : "h");
+    }
+
+    private boolean isMega(int file) {
+        return spec.megaHeaderEvery() > 0 && file % spec.megaHeaderEvery() == spec.megaHeaderEvery() - 1;
+    }
+
+    private Random random(int file, int stream) {
+        return new Random(spec.seed() * 31 + file * 7919L + stream);
+    }
+
+    private static String structName(int file, int index) {
+        return "f" + file + "_s" + index;
+    }
+
+    String source(int file, boolean latin1) {
+        Random random = random(file, 0);
+        int structs = isMega(file) ? spec.megaHeaderStructs() : Math.max(1, spec.structsPerFile() / 2
+                + random.nextInt(spec.structsPerFile() + 1));
+        StringBuilder text = new StringBuilder(structs * 320);
+        text.append("/*\n * ").append(relativePath(file)).append(" - synthetic corpus, seed ").append(spec.seed()).append('\n');
+        if (latin1) {
+            text.append(" * Gr\u00f6\u00dfe, L\u00e4nge und \u00dcbergr\u00f6\u00dfe: caf\u00e9, na\u00efve, se\u00f1or\n");
+        }
+        text.append(" */\n#include <stdint.h>\n#include <stddef.h>\n");
+        int module = file / FILES_PER_MODULE;
+        int neighbour = module * FILES_PER_MODULE + random.nextInt(FILES_PER_MODULE);
+        String path = relativePath(neighbour);
+        if (neighbour != file && neighbour < spec.files() && path.endsWith(".h")) {
+            text.append("#include \"").append(path.substring(path.indexOf('/') + 1)).append("\"\n");
+        }
+        text.append('\n');
+
+        for (int s = 0; s < structs; s++) {
+            appendStruct(text, random, file, s);
+        }
+        appendUsages(text, random, file);
+        return text.toString();
+    }
+
+    private void appendStruct(StringBuilder text, Random random, int file, int index) {
+        String name = structName(file, index);
+        if (index > 0 && random.nextDouble() < spec.forwardRatio()) {
+            text.append("struct ").append(name).append(";\n\n");
+            return;
+        }
+        boolean packed = random.nextDouble() < spec.packRatio();
+        boolean push = random.nextBoolean();
+        boolean typedef = random.nextDouble() < spec.typedefRatio();
+        if (packed) {
+            text.append(push ? "#pragma pack(push, 1)\n" : "#pragma pack(" + (1 << random.nextInt(3)) + ")\n");
+        }
+        if (random.nextInt(3) == 0) {
+            text.append("// ").append(name).append(": record ").append(random.nextInt(10000)).append('\n');
+        }
+        text.append(typedef ? "typedef struct " : "struct ").append(name).append(" {\n");
+        int fields = 2 + random.nextInt(10);
+        for (int f = 0; f < fields; f++) {
+            if (random.nextDouble() < spec.nestedRatio()) {
+                text.append("    struct {\n");
+                text.append("        ").append(TYPES[random.nextInt(TYPES.length)]).append(" inner").append(f).append(";\n");
+                text.append("        char tag").append(f).append("[8];\n");
+                text.append("    } nested").append(f).append(";\n");
+                continue;
+            }
+            text.append("    ");
+            if (index > 0 && random.nextInt(6) == 0) {
+                text.append("struct ").append(structName(file, random.nextInt(index))).append(" *link").append(f).append(";\n");
+                continue;
+            }
+            if (random.nextInt(8) == 0) text.append("const ");
+            text.append(TYPES[random.nextInt(TYPES.length)]);
+            text.append(random.nextInt(6) == 0 ? " *" : " ").append("field").append(f);
+            if (random.nextInt(5) == 0) text.append('[').append(1 + random.nextInt(64)).append(']');
+            text.append(';');
+            if (random.nextInt(5) == 0) text.append(" /* ").append(f).append(" */");
+            text.append('\n');
+        }
+        text.append('}');
+        if (typedef) text.append(' ').append(name).append("_t");
+        text.append(";\n");
+        if (packed) {
+            text.append(push ? "#pragma pack(pop)\n" : "#pragma pack()\n");
+        }
+        text.append('\n');
+    }
+
+    private void appendUsages(StringBuilder text, Random random, int file) {
+        int usages = 1 + random.nextInt(4);
+        for (int u = 0; u < usages; u++) {
+            // Anywhere in the tree, so files also use structs defined in files that sort after them
+            int other = random.nextInt(spec.files());
+            String used = structName(other, 0);
+            text.append("extern struct ").append(used).append(" *shared_").append(file).append('_').append(u).append(";\n");
+        }
+        text.append("\nstatic int process_").append(file).append("(struct ").append(structName(file, 0)).append(" *in)\n{\n");
+        text.append("    struct ").append(structName(file, 0)).append(" copy = {0};\n");
+        text.append("    return in != NULL && sizeof(copy) > 0;\n}\n");
+    }
+
+    /** Usage: CorpusGenerator &lt;dir&gt; &lt;files&gt;, with the shape taken from corpus.* system properties. */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CorpusGenerator <dir> <files>");
+            System.exit(2);
+        }
+        Properties config = System.getProperties();
+        CorpusSpec spec = CorpusSpec.fromConfig(config, Integer.parseInt(args[1]));
+        long start = System.nanoTime();
+        new CorpusGenerator(spec).write(Paths.get(args[0]));
+        System.out.printf("Wrote %d files to %s in %.1f s%n", spec.files(), args[0], (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,25 @@
+package org.currierg;
+
+import java.util.Properties;
+
+/**
+ * Shape of a synthetic corpus ({@code corpus.*} system properties or keys). Ratios are per struct, except
+ * {@code latin1Ratio}, which is per file. Every {@code megaHeaderEvery}-th file is a mega-header with
+ * {@code megaHeaderStructs} structs instead of {@code structsPerFile}.
+ */
+public record CorpusSpec(int files, int structsPerFile, double nestedRatio, double typedefRatio, double packRatio,
+                         double forwardRatio, double latin1Ratio, int megaHeaderEvery, int megaHeaderStructs, long seed) {
+
+    public static CorpusSpec fromConfig(Properties config, int files) {
+        return new CorpusSpec(files,
+                Integer.parseInt(config.getProperty("corpus.structs.per.file", "8").trim()),
+                Double.parseDouble(config.getProperty("corpus.nested.ratio", "0.1").trim()),
+                Double.parseDouble(config.getProperty("corpus.typedef.ratio", "0.4").trim()),
+                Double.parseDouble(config.getProperty("corpus.pack.ratio", "0.1").trim()),
+                Double.parseDouble(config.getProperty("corpus.forward.ratio", "0.1").trim()),
+                Double.parseDouble(config.getProperty("corpus.latin1.ratio", "0.05").trim()),
+                Integer.parseInt(config.getProperty("corpus.mega.every", "1000").trim()),
+                Integer.parseInt(config.getProperty("corpus.mega.structs", "2000").trim()),
+                Long.parseLong(config.getProperty("corpus.seed", "20240601").trim()));
+    }
+}
@@ -0,0 +1,170 @@
+package org.currierg;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * End-to-end scale run: for each corpus size, generates (or reuses) a synthetic tree, then times a full
+ * {@code analyze()} followed by {@code generateClasses()} and records wall time, files/sec and peak heap. Results are
+ * written as JSON and compared with a stored baseline; the process exits with 1 if any run is slower or uses more heap
+ * than its baseline by more than the tolerance. It also exits with 1, before running anything, when there is no
+ * baseline or the baseline was recorded for another corpus shape, since timings of different corpora say nothing.
+ * Sizes run in one JVM in increasing order, with a GC and a reset of the pool peaks before each run.
+ *
+ * <p>System properties: {@code scale.sizes} (comma-separated file counts), {@code scale.dir} (work directory),
+ * {@code scale.baseline} (baseline JSON), {@code scale.tolerance} (e.g. 0.25) and {@code scale.update} (write the
+ * results as the new baseline instead of comparing). The corpus shape comes from the {@code corpus.*} properties.
+ */
+public final class ScaleTest {
+    // Strong references, so the levels set below are not lost when a logger is collected
+    private static final Logger[] LOGGERS = {Logger.getLogger("org.currierg.Main"),
+            Logger.getLogger("org.currierg.Analysis"), Logger.getLogger("org.currierg.Generator")};
+
+    public record Run(int files, long analyzeMillis, long generateMillis, long wallMillis, double filesPerSecond,
+                      long peakHeapBytes) {
+    }
+
+    public record Results(String spec, List<Run> runs) {
+    }
+
+    private ScaleTest() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Properties config = System.getProperties();
+        List<Integer> sizes = Stream.of(config.getProperty("scale.sizes", "1000,10000,100000").split(","))
+                .map(String::trim).filter(s -> !s.isEmpty()).map(Integer::parseInt).sorted().toList();
+        Path dir = Paths.get(config.getProperty("scale.dir", "build/scale"));
+        Path baselineFile = Paths.get(config.getProperty("scale.baseline", "src/scale/baseline.json"));
+        double tolerance = Double.parseDouble(config.getProperty("scale.tolerance", "0.25"));
+        boolean update = Boolean.parseBoolean(config.getProperty("scale.update", "false"));
+        for (Logger logger : LOGGERS) {
+            logger.setLevel(Level.SEVERE);
+        }
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        String shape = CorpusSpec.fromConfig(config, 0).toString();
+        Results baseline = null;
+        if (!update) {
+            if (!Files.exists(baselineFile)) {
+                System.out.println("No baseline at " + baselineFile + "; record one with -PupdateBaseline");
+                System.exit(1);
+            }
+            baseline = mapper.readValue(baselineFile.toFile(), Results.class);
+            if (!baseline.spec().equals(shape)) {
+                System.out.println("Baseline " + baselineFile + " was recorded for a different corpus shape:\n  baseline "
+                        + baseline.spec() + "\n  current  " + shape + "\nRecord a new one with -PupdateBaseline");
+                System.exit(1);
+            }
+        }
+
+        List<Run> runs = new ArrayList<>();
+        for (int size : sizes) {
+            CorpusSpec spec = CorpusSpec.fromConfig(config, size);
+            Path corpus = dir.resolve("corpus-" + size);
+            long start = System.nanoTime();
+            new CorpusGenerator(spec).write(corpus);
+            System.out.printf("Corpus of %d files ready in %.1f s%n", size, (System.nanoTime() - start) / 1e9);
+            Run run = measure(size, corpus, dir.resolve("out-" + size));
+            System.out.printf("%7d files: analyze %d ms, generate %d ms, wall %d ms, %.0f files/s, peak heap %d MB%n",
+                    run.files(), run.analyzeMillis(), run.generateMillis(), run.wallMillis(), run.filesPerSecond(),
+                    run.peakHeapBytes() >> 20);
+            runs.add(run);
+        }
+
+        Results results = new Results(shape, runs);
+        Files.createDirectories(dir);
+        mapper.writeValue(dir.resolve("results.json").toFile(), results);
+        if (update) {
+            Files.createDirectories(baselineFile.toAbsolutePath().getParent());
+            mapper.writeValue(baselineFile.toFile(), results);
+            System.out.println("Wrote baseline " + baselineFile);
+            return;
+        }
+        List<String> regressions = compare(runs, baseline.runs(), tolerance);
+        if (!regressions.isEmpty()) {
+            regressions.forEach(System.out::println);
+            System.exit(1);
+        }
+        System.out.println("No regressions beyond " + Math.round(tolerance * 100) + "% of " + baselineFile);
+    }
+
+    private static Run measure(int size, Path corpus, Path out) throws IOException {
+        deleteTree(out);
+        Properties config = new Properties();
+        config.setProperty("source.dirs", corpus.toString());
+        config.setProperty("cache.enabled", "false");
+        config.setProperty("output.file", "structs_table.txt");
+        config.setProperty("output.json", "structsTable.json");
+        config.setProperty("output.json.pretty", "false");
+        config.setProperty("output.index", "structsTable.idx");
+        config.setProperty("error.file", "struct_errors.jsonl");
+
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP).toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long start = System.nanoTime();
+        Main main = new Main(config, out);
+        main.analyze();
+        long analyzed = System.nanoTime();
+        main.generateClasses();
+        long end = System.nanoTime();
+
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        long wallMillis = (end - start) / 1_000_000;
+        return new Run(size, (analyzed - start) / 1_000_000, (end - analyzed) / 1_000_000, wallMillis,
+                size * 1e9 / (end - start), peakHeap);
+    }
+
+    static List<String> compare(List<Run> runs, List<Run> baseline, double tolerance) {
+        Map<Integer, Run> bySize = baseline.stream().collect(Collectors.toMap(Run::files, Function.identity()));
+        List<String> regressions = new ArrayList<>();
+        for (Run run : runs) {
+            Run base = bySize.get(run.files());
+            if (base == null) {
+                System.out.println(run.files() + " files: no baseline entry");
+                continue;
+            }
+            if (run.wallMillis() > base.wallMillis() * (1 + tolerance)) {
+                regressions.add(String.format("REGRESSION %d files: wall %d ms vs baseline %d ms", run.files(),
+                        run.wallMillis(), base.wallMillis()));
+            }
+            if (run.peakHeapBytes() > base.peakHeapBytes() * (1 + tolerance)) {
+                regressions.add(String.format("REGRESSION %d files: peak heap %d MB vs baseline %d MB", run.files(),
+                        run.peakHeapBytes() >> 20, base.peakHeapBytes() >> 20));
+            }
+        }
+        return regressions;
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.currierg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import javax.tools.ToolProvider;
+
+import org.currierg.layout.StructBody;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// The layout report must see the same #pragma pack values as the flyweight generator, in every pragma form
+class MainLayoutTest {
+    private static final String HEADER = ""
+            + "#pragma pack(push, 1)\n"
+            + "struct packed_a { char c; int i; };\n"
+            + "#pragma pack(pop)\n"
+            + "struct natural_b { char c; int i; };\n"
+            + "#pragma pack(2)\n"
+            + "struct forward;\n"
+            + "struct after_c { char c; int i; };\n"
+            + "#pragma pack()\n"
+            + "struct natural_d { char c; int i; };\n"
+            + "#pragma pack(4) struct same_line { char c; double d; };\n";
+
+    @TempDir
+    Path dir;
+
+    private Main analyzer(String engine) throws Exception {
+        Path header = dir.resolve("src/inc/packs.h");
+        Files.createDirectories(header.getParent());
+        Files.writeString(header, HEADER);
+        Properties config = new Properties();
+        config.setProperty("source.dirs", dir.resolve("src").toString());
+        config.setProperty("cache.enabled", "false");
+        config.setProperty("analysis.engine", engine);
+        config.setProperty("output.file", "structs_table.txt");
+        config.setProperty("output.json", "structsTable.json");
+        config.setProperty("layout.report", "structLayout.csv");
+        return new Main(config, dir.resolve("out-" + engine));
+    }
+
+    @Test
+    void bodiesCarryThePackInEffectForEveryPragmaForm() throws Exception {
+        for (String engine : List.of("regex", "lexer")) {
+            Main main = analyzer(engine);
+            Map<String, Integer> packs = new HashMap<>();
+            for (StructBody body : main.processFile(dir.resolve("src/inc/packs.h")).bodies()) {
+                packs.put(body.name(), body.pack());
+            }
+            Map<String, Integer> expected = new HashMap<>(Map.of("packed_a", 1, "natural_b", 0, "after_c", 2, "natural_d", 0));
+            // The lexer reads a same-line pragma as one preprocessor line, as cpp does; only the regex keeps the struct
+            if (engine.equals("regex")) {
+                expected.put("same_line", 4);
+            }
+            assertEquals(expected, packs, engine);
+        }
+    }
+
+    @Test
+    void reportLaysOutPushedStructsPacked() throws Exception {
+        Main main = analyzer("regex");
+        main.analyze();
+        Map<String, String> rows = new HashMap<>();
+        for (String line : Files.readAllLines(dir.resolve("out-regex/structLayout.csv"))) {
+            String[] columns = line.split(",");
+            rows.put(columns[1], columns[5] + "," + columns[6] + "," + columns[8]);
+        }
+        // pack,size,padding as gcc lays them out
+        assertEquals("1,5,0", rows.get("packed_a"));
+        assertEquals("0,8,3", rows.get("natural_b"));
+        assertEquals("2,6,1", rows.get("after_c"));
+        assertEquals("4,12,3", rows.get("same_line"));
+    }
+
+    @Test
+    void flyweightsOnlyReferenceStructsWhoseClassIsWritten() throws Exception {
+        Path header = dir.resolve("src/inc/nested.h");
+        Files.createDirectories(header.getParent());
+        Files.writeString(header, ""
+                + "struct empty {};\n"
+                + "struct inner { char a; int b; };\n"
+                + "struct outer { int x; struct empty e; struct inner in; };\n");
+        Properties config = new Properties();
+        config.setProperty("source.dirs", dir.resolve("src").toString());
+        config.setProperty("cache.enabled", "false");
+        config.setProperty("output.file", "structs_table.txt");
+        config.setProperty("output.json", "structsTable.json");
+        config.setProperty("generate.mode", "flyweight");
+        Main main = new Main(config, dir.resolve("out"));
+        main.analyze();
+        main.generateClasses();
+
+        Path generated = dir.resolve("out/generated");
+        // empty has no fields to lay out, so it gets no class and outer no accessor for it
+        assertFalse(Files.exists(generated.resolve("empty.java")));
+        String outer = Files.readString(generated.resolve("outer.java"));
+        assertFalse(outer.contains("getE("), outer);
+        assertTrue(outer.contains("getIn("), outer);
+        List<String> args;
+        try (Stream<Path> files = Files.list(generated)) {
+            args = Stream.concat(Stream.of("-d", dir.resolve("classes").toString()), files.map(Path::toString)).toList();
+        }
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, args.toArray(String[]::new)),
+                "generated flyweights do not compile");
+    }
+}
@@ -0,0 +1,112 @@
+package org.currierg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.currierg.analysis.FileResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Regression test for per-file struct classification: a file's result must not depend on how many files were
+ * analyzed before it, and the work per file (counted in regex matches) must stay flat as the tree grows. Classification used to rescan every
+ * earlier match, which made analysis quadratic in the file count and attributed definitions to the wrong files.
+ */
+class MainScalingTest {
+    @TempDir
+    Path dir;
+
+    // Each file defines two structs and uses the previous file's struct, so names are unique per file
+    private static List<Path> corpus(Path root, int files) throws IOException {
+        List<Path> paths = new ArrayList<>(files);
+        for (int i = 0; i < files; i++) {
+            Path file = root.resolve("m" + i % 10).resolve("f" + i + ".h");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, ""
+                    + "struct rec_" + i + " {\n"
+                    + "    int id;\n"
+                    + "    struct rec_" + Math.max(0, i - 1) + " *prev;\n"
+                    + "};\n"
+                    + "typedef struct node_" + i + " { int v; } node_" + i + "_t;\n"
+                    + "/* struct comment_" + i + " { int hidden; }; */\n"
+                    + "static struct rec_" + i + " table_" + i + "[4];\n");
+            paths.add(file);
+        }
+        return paths;
+    }
+
+    private static Properties config(Path sourceDir) {
+        Properties config = new Properties();
+        config.setProperty("source.dirs", sourceDir.toString());
+        config.setProperty("cache.enabled", "false");
+        config.setProperty("analysis.threads", "1");
+        config.setProperty("output.file", "structs_table.txt");
+        config.setProperty("output.json", "structsTable.json");
+        return config;
+    }
+
+    @Test
+    void definitionsAreAttributedToTheFileTheyAppearIn() throws Exception {
+        Path root = dir.resolve("src");
+        corpus(root, 300);
+        Main main = new Main(config(root), dir.resolve("out"));
+        main.analyze();
+
+        JsonNode table = new ObjectMapper().readTree(dir.resolve("out/structsTable.json").toFile());
+        Map<String, List<String>> locations = new HashMap<>();
+        for (JsonNode definition : table.get("definitions")) {
+            List<String> files = new ArrayList<>();
+            definition.get("definitionFiles").forEach(file -> files.add(file.asText()));
+            locations.put(definition.get("name").asText(), files);
+        }
+        assertEquals(600, locations.size());
+        for (int i = 0; i < 300; i++) {
+            String file = "m" + i % 10 + "/f" + i + ".h";
+            assertEquals(List.of(file + ":1"), locations.get("rec_" + i), "rec_" + i);
+            assertEquals(List.of(file + ":5"), locations.get("node_" + i + "_t"), "node_" + i + "_t");
+        }
+    }
+
+    @Test
+    void perFileWorkDoesNotGrowWithTheNumberOfFilesSeen() throws Exception {
+        Path root = dir.resolve("src");
+        List<Path> files = corpus(root, 1600);
+        Main main = new Main(config(root), dir.resolve("out"));
+
+        FileResult first = main.processFile(files.get(0));
+        for (Path file : files) {
+            main.processFile(file);
+        }
+        // Same definitions, usages and lines after 1600 files as on a fresh analyzer
+        FileResult again = main.processFile(files.get(0));
+        assertEquals(first.definitions(), again.definitions());
+        assertEquals(first.usages(), again.usages());
+
+        // Every file has the same shape, so the regex matches counted for the whole tree are exactly one file's worth
+        // per file; rescanning earlier matches grew them with the number of files seen. Timings are left to the
+        // benchmarks and the scale test.
+        long perFile = matchesOf(files.subList(0, 1));
+        assertTrue(perFile > 0);
+        assertEquals(400 * perFile, matchesOf(files.subList(0, 400)));
+        assertEquals(1600 * perFile, matchesOf(files));
+    }
+
+    private long matchesOf(List<Path> files) throws IOException {
+        Main main = new Main(config(dir.resolve("src")), dir.resolve("count"));
+        for (Path file : files) {
+            main.processFile(file);
+        }
+        return main.metrics().counter("matches");
+    }
+}
@@ -0,0 +1,75 @@
+package org.currierg.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.currierg.util.LogUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileDiscoveryTest {
+    private static final LogUtil LOG = new LogUtil(Logger.getLogger(FileDiscoveryTest.class.getName()));
+
+    @TempDir
+    Path root;
+
+    private List<Path> createTree() throws Exception {
+        List<Path> files = new ArrayList<>();
+        for (int dir = 0; dir < 8; dir++) {
+            for (int file = 0; file < 25; file++) {
+                Path path = root.resolve("d" + dir).resolve("f" + file + ".c");
+                Files.createDirectories(path.getParent());
+                Files.writeString(path, "struct s" + file + " { int x; };\n");
+                files.add(path);
+            }
+        }
+        files.sort(null);
+        return files;
+    }
+
+    @Test
+    void maxFilesKeepsTheFirstFilesInPathOrder() throws Exception {
+        List<Path> files = createTree();
+        for (int run = 0; run < 5; run++) {
+            FileDiscovery discovery = new FileDiscovery(List.of(root), "**/*.{c,h}", null, 30, LOG);
+            List<Path> processed = new ArrayList<>(discovery.process(4, 4, 2, path -> path).keySet());
+            assertEquals(files.subList(0, 30), processed);
+            assertTrue(discovery.truncated());
+        }
+    }
+
+    @Test
+    void noLimitProcessesEveryFile() throws Exception {
+        List<Path> files = createTree();
+        FileDiscovery discovery = new FileDiscovery(List.of(root), "**/*.{c,h}", null, 0, LOG);
+        assertEquals(files, new ArrayList<>(discovery.process(4, 4, 2, path -> path).keySet()));
+        assertFalse(discovery.truncated());
+
+        FileDiscovery roomy = new FileDiscovery(List.of(root), "**/*.{c,h}", null, files.size(), LOG);
+        assertEquals(files.size(), roomy.process(2, 2, 2, path -> path).size());
+        assertFalse(roomy.truncated());
+    }
+
+    @Test
+    void nestedAndRepeatedRootsAreWalkedOnce() throws Exception {
+        List<Path> files = createTree();
+        FileDiscovery discovery = new FileDiscovery(List.of(root.resolve("d3"), root, root.resolve("d5/../d3"), root),
+                "**/*.{c,h}", null, 0, LOG);
+        assertEquals(List.of(root.toAbsolutePath().normalize()), discovery.roots());
+        List<Path> seen = Collections.synchronizedList(new ArrayList<>());
+        discovery.process(4, 4, 2, path -> {
+            seen.add(path);
+            return path;
+        });
+        seen.sort(null);
+        assertEquals(files, seen);
+    }
+}
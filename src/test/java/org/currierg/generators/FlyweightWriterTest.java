@@ -0,0 +1,186 @@
+package org.currierg.generators;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.Method;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.currierg.layout.Abi;
+import org.currierg.layout.LayoutCalculator;
+import org.currierg.layout.StructBody;
+import org.currierg.layout.StructLayout;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Generates flyweights, compiles them and checks that values land at the offsets gcc -m64 gives the same structs
+class FlyweightWriterTest {
+    @TempDir
+    Path dir;
+
+    private final Map<String, StructBody> bodies = new HashMap<>();
+    private final LayoutCalculator calculator = new LayoutCalculator(Abi.LP64, bodies::get);
+
+    private StructLayout layout(String name, String members, int pack) {
+        StructBody body = StructBody.parse(name, members, pack);
+        bodies.put(name, body);
+        return calculator.layout(body);
+    }
+
+    // Writes one file per layout, as the flyweight mode does, and loads the compiled classes
+    private ClassLoader compile(List<StructLayout> layouts) throws IOException {
+        Set<String> generated = Set.copyOf(layouts.stream().map(StructLayout::name).toList());
+        String[] files = new String[layouts.size() + 2];
+        files[0] = "-d";
+        files[1] = dir.toString();
+        for (int i = 0; i < layouts.size(); i++) {
+            Path file = dir.resolve(layouts.get(i).name() + ".java");
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+                FlyweightWriter.write(out, List.of(layouts.get(i)), generated);
+            }
+            files[i + 2] = file.toString();
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertEquals(0, compiler.run(null, null, null, files), "generated flyweights do not compile");
+        return new URLClassLoader(new java.net.URL[]{dir.toUri().toURL()}, getClass().getClassLoader());
+    }
+
+    private static Object wrap(ClassLoader loader, String name, ByteBuffer buffer, int offset) throws Exception {
+        Class<?> type = loader.loadClass(name);
+        Object view = type.getConstructor().newInstance();
+        return type.getMethod("wrap", ByteBuffer.class, int.class).invoke(view, buffer, offset);
+    }
+
+    private static Object call(Object view, String method, Object... args) throws Exception {
+        for (Method candidate : view.getClass().getMethods()) {
+            if (candidate.getName().equals(method) && candidate.getParameterCount() == args.length) {
+                return candidate.invoke(view, args);
+            }
+        }
+        throw new NoSuchMethodException(method);
+    }
+
+    private static int constant(ClassLoader loader, String name, String field) throws Exception {
+        return loader.loadClass(name).getField(field).getInt(null);
+    }
+
+    @Test
+    void packedStructRoundTripsAtPackedOffsets() throws Exception {
+        ClassLoader loader = compile(List.of(layout("packed", " char c; int i; short s; double d; ", 1)));
+        assertEquals(15, constant(loader, "packed", "SIZE"));
+        ByteBuffer buffer = ByteBuffer.allocate(32).order(ByteOrder.LITTLE_ENDIAN);
+        // Wrapped at an odd offset, as the second element of a packed array would be
+        Object view = wrap(loader, "packed", buffer, 15);
+        call(view, "setC", (byte) -5);
+        call(view, "setI", 0x12345678);
+        call(view, "setS", (short) -2);
+        call(view, "setD", 2.5);
+
+        assertEquals(-5, buffer.get(15));
+        assertEquals(0x12345678, buffer.getInt(15 + 1));
+        assertEquals(-2, buffer.getShort(15 + 5));
+        assertEquals(2.5, buffer.getDouble(15 + 7));
+        assertEquals((byte) -5, call(view, "getC"));
+        assertEquals(0x12345678, call(view, "getI"));
+        assertEquals((short) -2, call(view, "getS"));
+        assertEquals(2.5, call(view, "getD"));
+    }
+
+    @Test
+    void mixedWidthStructRoundTripsIncludingUnsignedAndPointerFields() throws Exception {
+        ClassLoader loader = compile(List.of(layout("mixed",
+                " unsigned char u8; unsigned short u16; unsigned int u32; char c; long l; float f; uint64_t u64; "
+                        + "int vals[3]; void *ptr; ", 0)));
+        assertEquals(64, constant(loader, "mixed", "SIZE"));
+        assertEquals(8, constant(loader, "mixed", "ALIGNMENT"));
+        ByteBuffer buffer = ByteBuffer.allocate(64).order(ByteOrder.BIG_ENDIAN);
+        Object view = wrap(loader, "mixed", buffer, 0);
+        call(view, "setU8", 0xFF);
+        call(view, "setU16", 0xFFFE);
+        call(view, "setU32", 0xFFFFFFFDL);
+        call(view, "setC", (byte) 'x');
+        call(view, "setL", -7L);
+        call(view, "setF", 1.5f);
+        call(view, "setU64", Long.MIN_VALUE);
+        call(view, "setVals", 2, 42);
+        call(view, "setPtr", 0xDEADBEEFL);
+
+        assertEquals(List.of(0, 2, 4, 8, 16, 24, 32, 40, 56), List.of(
+                constant(loader, "mixed", "U8_OFFSET"), constant(loader, "mixed", "U16_OFFSET"),
+                constant(loader, "mixed", "U32_OFFSET"), constant(loader, "mixed", "C_OFFSET"),
+                constant(loader, "mixed", "L_OFFSET"), constant(loader, "mixed", "F_OFFSET"),
+                constant(loader, "mixed", "U64_OFFSET"), constant(loader, "mixed", "VALS_OFFSET"),
+                constant(loader, "mixed", "PTR_OFFSET")));
+        assertEquals((byte) 0xFF, buffer.get(0));
+        assertEquals((short) 0xFFFE, buffer.getShort(2));
+        assertEquals(0xFFFFFFFD, buffer.getInt(4));
+        assertEquals('x', buffer.get(8));
+        assertEquals(-7L, buffer.getLong(16));
+        assertEquals(1.5f, buffer.getFloat(24));
+        assertEquals(Long.MIN_VALUE, buffer.getLong(32));
+        assertEquals(42, buffer.getInt(40 + 2 * 4));
+        assertEquals(0xDEADBEEFL, buffer.getLong(56));
+
+        assertEquals(0xFF, call(view, "getU8"));
+        assertEquals(0xFFFE, call(view, "getU16"));
+        assertEquals(0xFFFFFFFDL, call(view, "getU32"));
+        assertEquals(42, call(view, "getVals", 2));
+        assertEquals(0, call(view, "getVals", 0));
+        Exception outOfRange = assertThrows(Exception.class, () -> call(view, "getVals", 3));
+        assertTrue(outOfRange.getCause() instanceof IndexOutOfBoundsException);
+    }
+
+    @Test
+    void nestedStructsAreReachedThroughRewrappedViews() throws Exception {
+        StructLayout inner = layout("inner", " char a; int b; ", 0);
+        StructLayout tight = layout("tight", " char c; int i; ", 2);
+        StructLayout outer = layout("outer", " char tag; struct inner in; short tail; struct tight t; struct inner arr[2]; ", 0);
+        ClassLoader loader = compile(List.of(inner, tight, outer));
+        assertEquals(List.of(0, 4, 12, 14, 20), List.of(
+                constant(loader, "outer", "TAG_OFFSET"), constant(loader, "outer", "IN_OFFSET"),
+                constant(loader, "outer", "TAIL_OFFSET"), constant(loader, "outer", "T_OFFSET"),
+                constant(loader, "outer", "ARR_OFFSET")));
+        assertEquals(36, constant(loader, "outer", "SIZE"));
+
+        ByteBuffer buffer = ByteBuffer.allocate(36).order(ByteOrder.LITTLE_ENDIAN);
+        Object view = wrap(loader, "outer", buffer, 0);
+        Object innerView = loader.loadClass("inner").getConstructor().newInstance();
+        Object tightView = loader.loadClass("tight").getConstructor().newInstance();
+        call(view, "setTag", (byte) 1);
+        call(call(view, "getIn", innerView), "setB", 77);
+        call(view, "setTail", (short) 9);
+        call(call(view, "getT", tightView), "setI", -3);
+        call(call(view, "getArr", 1, innerView), "setB", 99);
+
+        assertEquals(1, buffer.get(0));
+        assertEquals(77, buffer.getInt(4 + 4));
+        assertEquals(9, buffer.getShort(12));
+        assertEquals(-3, buffer.getInt(14 + 2));
+        assertEquals(99, buffer.getInt(20 + 8 + 4));
+        assertEquals(77, call(call(view, "getIn", innerView), "getB"));
+        assertEquals(-3, call(call(view, "getT", tightView), "getI"));
+        assertEquals(99, call(call(view, "getArr", 1, innerView), "getB"));
+    }
+
+    @Test
+    void refusesLayoutsWithoutParsedFields() {
+        StructLayout empty = new StructLayout("empty", Abi.LP64, 0, 1, 0, List.of(), 0);
+        assertThrows(IllegalArgumentException.class, () -> FlyweightWriter.requireComplete(empty));
+        assertThrows(IllegalArgumentException.class,
+                () -> FlyweightWriter.write(new PrintWriter(new java.io.StringWriter()), List.of(empty), Set.of()));
+    }
+}
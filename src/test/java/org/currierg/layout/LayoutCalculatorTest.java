@@ -0,0 +1,102 @@
+package org.currierg.layout;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+// Expected offsets and sizes are what gcc -m64 / -m32 print with offsetof and sizeof for the same declarations
+class LayoutCalculatorTest {
+    private final Map<String, StructBody> bodies = new HashMap<>();
+
+    private StructBody body(String name, String members, int pack) {
+        StructBody body = StructBody.parse(name, members, pack);
+        bodies.put(name, body);
+        return body;
+    }
+
+    private static List<Integer> offsets(StructLayout layout) {
+        return layout.fields().stream().map(FieldLayout::offset).toList();
+    }
+
+    @Test
+    void mixedWidthFieldsOnLp64() {
+        StructLayout layout = new LayoutCalculator(Abi.LP64, bodies::get).layout(body("mix",
+                " char c; short s; int i; long l; char c2; double d; unsigned char u; void *p; long double ld; ", 0));
+        assertEquals(List.of(0, 2, 4, 8, 16, 24, 32, 40, 48), offsets(layout));
+        assertEquals(64, layout.size());
+        assertEquals(16, layout.align());
+        assertEquals(1 + 7 + 7, layout.paddingBytes());
+    }
+
+    @Test
+    void mixedWidthFieldsOnIlp32() {
+        StructLayout layout = new LayoutCalculator(Abi.ILP32, bodies::get).layout(body("mix",
+                " char c; short s; int i; long l; char c2; double d; unsigned char u; void *p; long double ld; ", 0));
+        assertEquals(List.of(0, 2, 4, 8, 12, 16, 24, 28, 32), offsets(layout));
+        assertEquals(44, layout.size());
+        assertEquals(4, layout.align());
+    }
+
+    @Test
+    void eightByteScalarsAreFourByteAlignedOnIlp32() {
+        String members = " char c; long long x; ";
+        StructLayout lp64 = new LayoutCalculator(Abi.LP64, bodies::get).layout(body("ll", members, 0));
+        StructLayout ilp32 = new LayoutCalculator(Abi.ILP32, bodies::get).layout(body("ll", members, 0));
+        assertEquals(List.of(0, 8), offsets(lp64));
+        assertEquals(16, lp64.size());
+        assertEquals(List.of(0, 4), offsets(ilp32));
+        assertEquals(12, ilp32.size());
+    }
+
+    @Test
+    void pragmaPackCapsFieldAndStructAlignment() {
+        LayoutCalculator calculator = new LayoutCalculator(Abi.LP64, bodies::get);
+        StructLayout one = calculator.layout(body("p1", " char c; int i; short s; double d; ", 1));
+        assertEquals(List.of(0, 1, 5, 7), offsets(one));
+        assertEquals(15, one.size());
+        assertEquals(1, one.align());
+        assertEquals(0, one.paddingBytes());
+
+        StructLayout four = calculator.layout(body("p4", " char c; double d; short s; ", 4));
+        assertEquals(List.of(0, 4, 12), offsets(four));
+        assertEquals(16, four.size());
+        assertEquals(4, four.align());
+
+        // pack larger than any member changes nothing
+        StructLayout sixteen = calculator.layout(body("p16", " char c; double d; ", 16));
+        assertEquals(List.of(0, 8), offsets(sixteen));
+        assertEquals(16, sixteen.size());
+    }
+
+    @Test
+    void nestedStructsKeepTheirOwnPackValue() {
+        body("inner", " char a; int b; ", 0);
+        body("p2", " char c; int i; ", 2);
+        LayoutCalculator calculator = new LayoutCalculator(Abi.LP64, bodies::get);
+
+        StructLayout outer = calculator.layout(body("outer", " char tag; struct inner in; short tail; struct inner arr[2]; ", 0));
+        assertEquals(List.of(0, 4, 12, 16), offsets(outer));
+        assertEquals(32, outer.size());
+        assertEquals(4, outer.align());
+
+        // A packed struct embedded in a naturally aligned one keeps pack 2 inside and alignment 2 outside
+        StructLayout holder = calculator.layout(body("holder", " char c; struct p2 p; char d; ", 0));
+        assertEquals(List.of(0, 2, 8), offsets(holder));
+        assertEquals(10, holder.size());
+        assertEquals(2, holder.align());
+    }
+
+    @Test
+    void rejectsUnknownAndIncompleteNestedStructs() {
+        body("partial", " char c; int a, b; ", 0);
+        LayoutCalculator calculator = new LayoutCalculator(Abi.LP64, bodies::get);
+        assertThrows(IllegalArgumentException.class, () -> calculator.layout(body("a", " struct missing m; ", 0)));
+        assertThrows(IllegalArgumentException.class, () -> calculator.layout(body("b", " struct partial p; ", 0)));
+        assertThrows(IllegalArgumentException.class, () -> calculator.layout(body("self", " int x; struct self again; ", 0)));
+    }
+}
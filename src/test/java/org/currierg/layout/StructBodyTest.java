@@ -0,0 +1,48 @@
+package org.currierg.layout;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class StructBodyTest {
+    private static final LayoutCalculator LP64 = new LayoutCalculator(Abi.LP64, name -> null);
+
+    @Test
+    void parsesEveryMemberOfASupportedBody() {
+        StructBody body = StructBody.parse("msg", " char kind; unsigned long long id; struct hdr *next; int vals[4]; char tail[]; ", 0);
+        assertTrue(body.complete());
+        assertEquals(List.of("kind", "id", "next", "vals", "tail"), body.fields().stream().map(FieldDecl::name).toList());
+    }
+
+    @Test
+    void rejectsBodiesWithMembersThePatternCannotRead() {
+        for (String member : List.of("char name[NAME_LEN];", "unsigned f : 3;", "int a, b;", "void (*cb)(int);",
+                "int m[2][3];", "enum color c;")) {
+            StructBody body = StructBody.parse("s", " char kind; " + member + " double d; ", 0);
+            assertFalse(body.complete(), member);
+            assertTrue(body.unsupported().contains(member), body.unsupported());
+            assertThrows(IllegalArgumentException.class, () -> LP64.layout(body));
+        }
+    }
+
+    @Test
+    void rejectsInlineBodiesAndUnterminatedDeclarations() {
+        assertFalse(StructBody.parse("s", " struct { int x; } inner; ", 0).complete());
+        assertFalse(StructBody.parse("s", " int x; int y ", 0).complete());
+    }
+
+    @Test
+    void reportListsIncompleteStructsAsSkipped() {
+        LayoutReport report = new LayoutReport(LP64, 64);
+        assertFalse(report.add(StructBody.parse("partial", " char kind; int a, b; double d; ", 0), "a.h:1", 3));
+        assertTrue(report.add(StructBody.parse("whole", " char kind; double d; ", 0), "a.h:9", 1));
+        assertEquals(1, report.ranked().size());
+        assertEquals(1, report.skipped().size());
+        assertTrue(report.skipped().get(0).startsWith("partial: "), report.skipped().get(0));
+    }
+}
@@ -0,0 +1,43 @@
+package org.currierg.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SourceReaderTest {
+    @TempDir
+    Path dir;
+
+    private static String header(int bytes) {
+        StringBuilder text = new StringBuilder(bytes);
+        for (int i = 0; text.length() < bytes; i++) {
+            text.append("struct s").append(i).append(" { int x; };\n");
+        }
+        return text.toString();
+    }
+
+    @Test
+    void readsFilesAboveThePooledBufferAndReleasesThem() throws Exception {
+        Path file = dir.resolve("big.h");
+        String text = header(3 << 20);
+        Files.writeString(file, text);
+        assertEquals(text, SourceReader.read(file).toString());
+        // Nothing is left mapped, so the file can be rewritten and deleted straight away
+        Files.writeString(file, "struct small { int x; };\n");
+        assertEquals("struct small { int x; };\n", SourceReader.read(file).toString());
+        Files.delete(file);
+    }
+
+    @Test
+    void widensLargeLatin1FilesWithoutReadingThemAgain() throws Exception {
+        Path file = dir.resolve("legacy.h");
+        String text = header(2 << 20) + "/* caf\u00e9 */\n";
+        Files.write(file, text.getBytes(StandardCharsets.ISO_8859_1));
+        assertEquals(text, SourceReader.read(file).toString());
+    }
+}